@@ -0,0 +1,109 @@
+package net.safedata.performance.training.catalog;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.model.StoreSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the compound and the top K queries of the {@link ProductCatalog}, compared with a stream over the same
+ * products; the 'updates' group measures the queries while stores are replaced concurrently.
+ * <p>
+ * The 10M products catalog needs a large heap - e.g. '-jvmArgs -Xmx4g'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductCatalogBenchmark {
+
+    private static final int PRODUCTS_PER_SECTION = 10_000;
+
+    @Param({"10000000"})
+    private int products;
+
+    private ProductCatalog catalog;
+    private List<Product> allProducts;
+    private int stores;
+
+    private final CatalogQuery compound = CatalogQuery.builder()
+                                                      .inSections(StoreSection.Laptops, StoreSection.Tablets)
+                                                      .priceBetween(1000, 1050)
+                                                      .withDiscountType(Discount.Type.Percent)
+                                                      .build();
+
+    private final CatalogQuery topTen = CatalogQuery.builder()
+                                                    .discountedOnly()
+                                                    .priceBetween(2000, 3000)
+                                                    .mostExpensiveFirst(10)
+                                                    .build();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stores = products / (PRODUCTS_PER_SECTION * StoreSection.values().length);
+        catalog = new ProductCatalog();
+        for (int firstStore = 0; firstStore < stores; firstStore += 100) {
+            catalog.putStores(DemoStores.generate(firstStore, Math.min(100, stores - firstStore),
+                    PRODUCTS_PER_SECTION));
+        }
+        allProducts = catalog.find(CatalogQuery.builder()
+                                              .inSections(StoreSection.Laptops, StoreSection.Tablets)
+                                              .build());
+    }
+
+    @Benchmark
+    public List<Product> compoundQuery() {
+        return catalog.find(compound);
+    }
+
+    @Benchmark
+    public int compoundCount() {
+        return catalog.count(compound);
+    }
+
+    @Benchmark
+    public List<Product> topK() {
+        return catalog.find(topTen);
+    }
+
+    @Benchmark
+    public long compoundQueryStream() {
+        return allProducts.stream()
+                          .filter(product -> product.getPrice() >= 1000 && product.getPrice() <= 1050)
+                          .filter(product -> product.getDiscount()
+                                                    .filter(discount -> discount.getDiscountType() ==
+                                                            Discount.Type.Percent)
+                                                    .isPresent())
+                          .count();
+    }
+
+    @Benchmark
+    @Group("updates")
+    public List<Product> queryDuringUpdates() {
+        return catalog.find(compound);
+    }
+
+    @Benchmark
+    @Group("updates")
+    public void replaceStore() {
+        catalog.putStore(DemoStores.generate(ThreadLocalRandom.current().nextInt(stores), PRODUCTS_PER_SECTION));
+    }
+}
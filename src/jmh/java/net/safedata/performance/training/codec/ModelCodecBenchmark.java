@@ -0,0 +1,124 @@
+package net.safedata.performance.training.codec;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ModelCodec} with the Java serialization and with JSON, for a list of products. The
+ * allocations can be compared using '-prof gc'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelCodecBenchmark {
+
+    public enum Codec {
+        BINARY,
+        JAVA_SERIALIZATION,
+        JSON
+    }
+
+    // the JSON form of the products - Product has neither a default constructor nor a creator
+    record DiscountJson(int value, Discount.Type discountType) {
+    }
+
+    record ProductJson(int id, String name, double price, DiscountJson discount) {
+        Product toProduct() {
+            return new Product(id, name, price, discount != null ? new Discount(discount.value(),
+                    discount.discountType()) : null);
+        }
+    }
+
+    private static final JsonMapper JSON_MAPPER = new JsonMapper();
+    private static final TypeReference<List<ProductJson>> PRODUCTS_JSON = new TypeReference<>() {
+    };
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"BINARY", "JAVA_SERIALIZATION", "JSON"})
+    private Codec codec;
+
+    private List<Product> products;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        products = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            final Discount discount = index % 3 == 0
+                    ? new Discount(random.nextInt(50), Discount.Type.values()[index % 2])
+                    : null;
+            products.add(new Product(index, "The product " + index, 1000 * random.nextInt(50000) + 10, discount));
+        }
+
+        encoded = encode();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return switch (codec) {
+            case BINARY -> ModelCodec.encodeProducts(products);
+            case JAVA_SERIALIZATION -> serialize(products);
+            case JSON -> JSON_MAPPER.writeValueAsBytes(products);
+        };
+    }
+
+    @Benchmark
+    public List<Product> decode() {
+        return switch (codec) {
+            case BINARY -> ModelCodec.decodeProducts(encoded);
+            case JAVA_SERIALIZATION -> deserialize(encoded);
+            case JSON -> JSON_MAPPER.readValue(encoded, PRODUCTS_JSON)
+                                    .stream()
+                                    .map(ProductJson::toProduct)
+                                    .toList();
+        };
+    }
+
+    private static byte[] serialize(final List<Product> products) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(products);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Product> deserialize(final byte[] serialized) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (List<Product>) input.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package net.safedata.performance.training.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load benchmark for the '/product/long/sync/{productType}' retrieval: 16 concurrent callers, spread over 1 or 8
+ * product types, each retrieval taking ~2 ms. Compares the previous service-wide {@code synchronized} method with the
+ * per-product type {@link SingleFlight}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class SingleFlightBenchmark {
+
+    private static final long RETRIEVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Param({"1", "8"})
+    private int productTypes;
+
+    private final SingleFlight<String, List<String>> singleFlight = new SingleFlight<>();
+
+    @State(Scope.Thread)
+    public static class Caller {
+        private String productType;
+
+        @Setup
+        public void setUp(final SingleFlightBenchmark benchmark, final ThreadParams threadParams) {
+            productType = "type-" + threadParams.getThreadIndex() % benchmark.productTypes;
+        }
+    }
+
+    @Benchmark
+    public List<String> synchronizedService(final Caller caller) {
+        return getSynchronizedProducts(caller.productType);
+    }
+
+    @Benchmark
+    public List<String> singleFlight(final Caller caller) {
+        return singleFlight.execute(caller.productType, () -> retrieveProducts(caller.productType));
+    }
+
+    // the previous behavior - all the callers are serialized, regardless of the product type
+    private synchronized List<String> getSynchronizedProducts(final String productType) {
+        return retrieveProducts(productType);
+    }
+
+    private static List<String> retrieveProducts(final String productType) {
+        LockSupport.parkNanos(RETRIEVAL_NANOS);
+        return List.of(productType);
+    }
+}
@@ -0,0 +1,92 @@
+package net.safedata.performance.training.domain.ingest;
+
+import net.safedata.performance.training.domain.model.ProductEntity;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rows per second of the JDBC bulk-insert paths, in an in-memory H2 database. The 'rows' secondary
+ * result of each benchmark is the rows/s throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductIngestBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"1000"})
+    private int batchSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private ProductBatchInserter batchInserter;
+    private List<ProductEntity> products;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class InsertedRows {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ingest;DB_CLOSE_DELAY=-1");
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS product (id BIGINT PRIMARY KEY, name VARCHAR(100), " +
+                "price DOUBLE)");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + ProductEntity.ID_SEQUENCE + " START WITH 1 " +
+                "INCREMENT BY " + ProductEntity.ID_ALLOCATION_SIZE);
+
+        batchInserter = new ProductBatchInserter(jdbcTemplate, new PooledIdAllocator(jdbcTemplate,
+                ProductEntity.ID_SEQUENCE, ProductEntity.ID_ALLOCATION_SIZE), batchSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareProducts() {
+        jdbcTemplate.execute("TRUNCATE TABLE product");
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        products = new ArrayList<>(rows);
+        for (int index = 0; index < rows; index++) {
+            products.add(new ProductEntity(0, "The product " + index, 1000 * random.nextInt(50000)));
+        }
+    }
+
+    @Benchmark
+    public int jdbcBatch(final InsertedRows insertedRows) {
+        final int inserted = batchInserter.insertBatched(products);
+        insertedRows.rows += inserted;
+        return inserted;
+    }
+
+    @Benchmark
+    public int h2CsvRead(final InsertedRows insertedRows) {
+        final int inserted = batchInserter.insertFromCsv(products);
+        insertedRows.rows += inserted;
+        return inserted;
+    }
+}
@@ -0,0 +1,100 @@
+package net.safedata.performance.training.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A closed-loop load generator, used to compare the platform threads and the virtual threads modes of the
+ * application: each client (a virtual thread) sends a request, waits for the response and sends the next one.
+ * <p>
+ * Usage, against a running application: {@code ProductsLoadGenerator [url] [clients] [duration in seconds]}, e.g.
+ * {@code ProductsLoadGenerator http://localhost:8080/product/long/laptops 1000 60}
+ */
+public class ProductsLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        final URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/product/long/laptops");
+        final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 60);
+
+        final HttpClient httpClient = HttpClient.newBuilder()
+                                                .version(HttpClient.Version.HTTP_1_1)
+                                                .connectTimeout(Duration.ofSeconds(10))
+                                                .build();
+        final HttpRequest request = HttpRequest.newBuilder(uri)
+                                               .timeout(Duration.ofMinutes(2))
+                                               .GET()
+                                               .build();
+        final AtomicLong errors = new AtomicLong();
+
+        System.out.printf("Sending requests to %s from %d clients, for %s%n", uri, clients, duration);
+        final long deadline = System.nanoTime() + duration.toNanos();
+        final long start = System.nanoTime();
+
+        final List<Future<long[]>> clientLatencies = new ArrayList<>(clients);
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                clientLatencies.add(executorService.submit(() -> runClient(httpClient, request, deadline, errors)));
+            }
+        }
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long[] latencies = new long[0];
+        for (final Future<long[]> future : clientLatencies) {
+            final long[] clientLatency = future.get();
+            final int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + clientLatency.length);
+            System.arraycopy(clientLatency, 0, latencies, offset, clientLatency.length);
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("Requests: %d, errors: %d, throughput: %.1f requests/s%n", latencies.length, errors.get(),
+                latencies.length / elapsedSeconds);
+        System.out.printf("Latency (ms) - p50: %.1f, p90: %.1f, p99: %.1f, max: %.1f%n", percentile(latencies, 0.5),
+                percentile(latencies, 0.9), percentile(latencies, 0.99), percentile(latencies, 1));
+    }
+
+    private static long[] runClient(final HttpClient httpClient, final HttpRequest request, final long deadline,
+                                    final AtomicLong errors) {
+        long[] latencies = new long[64];
+        int count = 0;
+
+        while (System.nanoTime() < deadline) {
+            final long start = System.nanoTime();
+            try {
+                final HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+            } catch (final Exception exception) {
+                errors.incrementAndGet();
+                continue;
+            }
+
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count << 1);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static double percentile(final long[] sortedLatencies, final double percentile) {
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        final int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1e6;
+    }
+}
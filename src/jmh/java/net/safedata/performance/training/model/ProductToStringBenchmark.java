@@ -0,0 +1,67 @@
+package net.safedata.performance.training.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductToStringBenchmark {
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private ForkJoinPool forkJoinPool;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        forkJoinPool = new ForkJoinPool(threads);
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        products = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            // every other product is discounted, to cover both 'toString' branches
+            final Discount discount = index % 2 == 0
+                    ? new Discount(random.nextInt(50), Discount.Type.values()[index % 4 / 2])
+                    : null;
+            products.add(new Product(index, "The product " + index, 1000 * random.nextInt(50000) + 10, discount));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdownNow();
+    }
+
+    @Benchmark
+    public void productToString(final Blackhole blackhole) {
+        forkJoinPool.submit(() -> products.parallelStream()
+                                          .map(Product::toString)
+                                          .forEach(blackhole::consume))
+                    .join();
+    }
+}
@@ -0,0 +1,57 @@
+package net.safedata.performance.training.sales;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sustained throughput of the sales journal - the producers are blocked when the queue is full, so the measured
+ * rate is the rate at which the entries are made durable. Run it on the disk used in production ('-Djava.io.tmpdir').
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SalesJournalBenchmark {
+
+    private Path directory;
+    private SalesJournal salesJournal;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("sales-journal-benchmark");
+        salesJournal = new SalesJournal(true, directory, DataSize.ofMegabytes(64), 4, 65536);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        salesJournal.awaitDurable(Duration.ofMinutes(1));
+        salesJournal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void appendSale() {
+        salesJournal.appendSale(12_345);
+    }
+}
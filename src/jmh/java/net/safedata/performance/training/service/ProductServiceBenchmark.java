@@ -0,0 +1,190 @@
+package net.safedata.performance.training.service;
+
+import net.safedata.performance.training.cache.ProductCache;
+import net.safedata.performance.training.concurrent.ParallelAggregator;
+import net.safedata.performance.training.concurrent.ScatterGather;
+import net.safedata.performance.training.domain.repository.ProductRepository;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.sales.SalesJournal;
+import net.safedata.performance.training.store.ProductRetention;
+import net.safedata.performance.training.store.ProductStore;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the {@link ProductService} hot paths. The sequential benchmarks run on the benchmark thread; the
+ * parallel ones are executed on a dedicated {@link ForkJoinPool}, sized by the 'threads' parameter of their
+ * {@link ParallelPool} state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    // the collaborators of the services - the benchmarks use none of them, but the services are built as in the app
+    private ProductCache productCache;
+    private ExecutorService stocksExecutor;
+    private ProductService productService;
+
+    private List<Product> products;
+    private double[] prices;
+    private ProductStore productStore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        productCache = new ProductCache(unusedProductRepository(), 1000, Duration.ofMinutes(10),
+                Duration.ofSeconds(30), Duration.ofSeconds(30), 100, Duration.ofMillis(2));
+        stocksExecutor = Executors.newSingleThreadExecutor();
+        productService = newProductService(new ParallelAggregator(ForkJoinPool.commonPool()));
+
+        products = new ArrayList<>(size);
+        prices = new double[size];
+        productStore = new ProductStore(size);
+        for (int index = 0; index < size; index++) {
+            final Product product = productService.buildProduct(index);
+            products.add(product);
+            prices[index] = product.getPrice();
+            productStore.append(product);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        productCache.close();
+        stocksExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public ProductService generateProducts(final ParallelPool parallelPool,
+                                           final EmptyProductService emptyProductService) {
+        final ProductService service = emptyProductService.productService;
+        parallelPool.forkJoinPool.submit(() -> service.generateProducts(size))
+                                 .join();
+        return service;
+    }
+
+    @Benchmark
+    public double priceSumSequential() {
+        return ProductService.getProductsPriceSum(products);
+    }
+
+    @Benchmark
+    public double priceSumParallel(final ParallelPool parallelPool) {
+        return parallelPool.forkJoinPool.submit(() -> products.parallelStream()
+                                                              .filter(Objects::nonNull)
+                                                              .mapToDouble(Product::getPrice)
+                                                              .sum())
+                                        .join();
+    }
+
+    @Benchmark
+    public double priceSumPrimitiveArray() {
+        double sum = 0;
+        for (final double price : prices) {
+            sum += price;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double priceSumProductStore() {
+        return ProductService.getProductsPriceSum(productStore);
+    }
+
+    @Benchmark
+    public double priceSumAdaptiveParallel(final ParallelPool parallelPool) {
+        return parallelPool.parallelAggregator.aggregatePrices("price-sum", productStore,
+                prices -> prices.reduce(0, Double::sum));
+    }
+
+    @Benchmark
+    public long discountedAdaptiveParallel(final ParallelPool parallelPool) {
+        return parallelPool.parallelAggregator.aggregate("discounted", productStore, productsStream ->
+                productsStream.filter(product -> product.getDiscount().isPresent())
+                              .count());
+    }
+
+    @Benchmark
+    public List<Product> buildProduct() {
+        final List<Product> built = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            built.add(productService.buildProduct(index));
+        }
+        return built;
+    }
+
+    // the pool of the parallel benchmarks - the parallel streams run in it, and so does the adaptive aggregator
+    @State(Scope.Benchmark)
+    public static class ParallelPool {
+        @Param({"1", "4"})
+        private int threads;
+
+        private ForkJoinPool forkJoinPool;
+        private ParallelAggregator parallelAggregator;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            forkJoinPool = new ForkJoinPool(threads);
+            parallelAggregator = new ParallelAggregator(forkJoinPool);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            forkJoinPool.shutdownNow();
+        }
+    }
+
+    // 'generateProducts' keeps everything it builds, so each invocation starts from an empty service
+    @State(Scope.Thread)
+    public static class EmptyProductService {
+        private ProductService productService;
+
+        @Setup(Level.Invocation)
+        public void setUp(final ProductServiceBenchmark benchmark, final ParallelPool parallelPool) {
+            productService = benchmark.newProductService(parallelPool.parallelAggregator);
+        }
+    }
+
+    private ProductService newProductService(final ParallelAggregator parallelAggregator) {
+        final JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmarks");
+        return new ProductService(dataSource, unusedProductRepository(), ProductRetention.unbounded(), productCache,
+                SalesJournal.disabled(), parallelAggregator, new ScatterGather(stocksExecutor, 16));
+    }
+
+    // the benchmarks work with the in-memory products only
+    private static ProductRepository unusedProductRepository() {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(),
+                new Class<?>[] {ProductRepository.class}, (proxy, method, arguments) -> {
+                    throw new UnsupportedOperationException("The benchmarks don't read the database products");
+                });
+    }
+}
@@ -0,0 +1,99 @@
+package net.safedata.performance.training.store;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the aggregation of the prices and of the discounted net prices: a stream over the {@link Product}s vs.
+ * the scalar and the vectorized loops over the {@link ProductStore} columns. The forked JVMs add the Vector API
+ * module, so that the vectorized aggregator can be used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PriceAggregationBenchmark {
+
+    public enum Aggregation {
+        STREAM,
+        SCALAR,
+        VECTOR
+    }
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"STREAM", "SCALAR", "VECTOR"})
+    private Aggregation aggregation;
+
+    private List<Product> products;
+    private ProductColumns columns;
+    private PriceAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(20000);
+        final ProductStore productStore = new ProductStore(size);
+        products = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            final Discount discount = index % 3 == 0
+                    ? new Discount(random.nextInt(50), Discount.Type.values()[random.nextInt(2)])
+                    : null;
+            final Product product = new Product(index, "The product " + index, 1000 * random.nextInt(50000) + 10,
+                    discount);
+            products.add(product);
+            productStore.append(product);
+        }
+
+        columns = productStore.copyColumns();
+        // the vectorized aggregator is compiled after the benchmarks, so it is only loaded by name
+        aggregator = aggregation == Aggregation.VECTOR ? PriceAggregator.fastest() : PriceAggregator.scalar();
+        if (aggregation == Aggregation.VECTOR && aggregator == PriceAggregator.scalar()) {
+            throw new IllegalStateException("The Vector API is not available in the benchmark JVM");
+        }
+    }
+
+    @Benchmark
+    public PriceAggregates aggregate() {
+        if (aggregation == Aggregation.STREAM) {
+            final DoubleSummaryStatistics statistics = products.stream()
+                                                               .mapToDouble(Product::getPrice)
+                                                               .summaryStatistics();
+            final double netSum = products.stream()
+                                          .mapToDouble(PriceAggregationBenchmark::netPrice)
+                                          .sum();
+            return new PriceAggregates((int) statistics.getCount(), statistics.getSum(), statistics.getMin(),
+                    statistics.getMax(), netSum);
+        }
+
+        return aggregator.aggregate(columns.prices(), columns.discountValues(), columns.discounted(),
+                columns.percentDiscounts(), columns.size());
+    }
+
+    private static double netPrice(final Product product) {
+        return product.getDiscount()
+                      .map(discount -> discount.getDiscountType() == Discount.Type.Percent
+                              ? product.getPrice() * (1 - discount.getValue() / 100d)
+                              : Math.max(product.getPrice() - discount.getValue(), 0))
+                      .orElse(product.getPrice());
+    }
+}
@@ -0,0 +1,69 @@
+package net.safedata.performance.training.store;
+
+import net.safedata.performance.training.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Measures the retained heap of 1M and 10M products, kept in a {@code List<Product>} vs. in a {@link ProductStore}.
+ * <p>
+ * The products are built like the ones from the scheduled processing, where each run restarts the indexes from 0,
+ * using up to 50.000 products per run.
+ * <p>
+ * Run with a large enough heap: {@code java -Xmx4g -cp <benchmarks classpath>
+ * net.safedata.performance.training.store.ProductStoreFootprint}
+ */
+public class ProductStoreFootprint {
+
+    private static final long BYTES_IN_MB = 1048576;
+    private static final int PRODUCTS_PER_RUN = 50_000;
+
+    public static void main(String[] args) {
+        for (final int productsNumber : new int[] {1_000_000, 10_000_000}) {
+            final long listFootprint = measure(() -> {
+                final List<Product> products = new ArrayList<>();
+                fill(productsNumber, products::add);
+                return products;
+            });
+            final long storeFootprint = measure(() -> {
+                final ProductStore products = new ProductStore();
+                fill(productsNumber, products::append);
+                return products;
+            });
+
+            System.out.printf("%,d products: List<Product> %,d MB, ProductStore %,d MB (%.1fx smaller)%n",
+                    productsNumber, listFootprint / BYTES_IN_MB, storeFootprint / BYTES_IN_MB,
+                    (double) listFootprint / storeFootprint);
+        }
+    }
+
+    private static void fill(final int productsNumber, final Consumer<Product> consumer) {
+        final Random random = new Random(20000);
+        for (int index = 0; index < productsNumber; index++) {
+            final int id = index % PRODUCTS_PER_RUN;
+            consumer.accept(new Product(id, "The product " + id, 1000 * random.nextInt(50000) + 10));
+        }
+    }
+
+    private static long measure(final Supplier<Object> retainedValueSupplier) {
+        final long before = usedMemory();
+        final Object retainedValue = retainedValueSupplier.get();
+        final long after = usedMemory();
+
+        // keeps the measured value reachable until after the second measurement
+        System.out.println("Measured " + retainedValue.getClass().getSimpleName());
+        return after - before;
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
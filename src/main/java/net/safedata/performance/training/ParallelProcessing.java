@@ -1,15 +1,14 @@
 package net.safedata.performance.training;
 
-import java.util.HashSet;
+import net.safedata.performance.training.concurrent.InstrumentedExecutor;
+import net.safedata.performance.training.concurrent.PartialResult;
+import net.safedata.performance.training.concurrent.ScatterGather;
+
+import java.time.Duration;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 public class ParallelProcessing {
 
@@ -20,31 +19,23 @@ public class ParallelProcessing {
     public static void main(String[] args) {
         long now = System.currentTimeMillis();
 
-        try {
-            ExecutorService executorService = Executors.newFixedThreadPool(CORES / 2);
-            ExecutorCompletionService<Integer> executorCompletionService = new ExecutorCompletionService<>(executorService);
-
-            for (int i=0; i <=20; i++) {
-                // forking - sending tasks to be processed in parallel
-                executorCompletionService.submit(new DepositStockComputeTask());
-            }
-
-            Set<Integer> stocks = new HashSet<>();
-            for (int i=0; i <=20; i++) {
-                final Future<Integer> future = executorCompletionService.poll(100, TimeUnit.MILLISECONDS);
-                if (future != null && future.isDone() && !future.isCancelled()) {
-                    // joining
-                    stocks.add(future.get());
-                }
-            }
-
-            System.out.println("Obtained stocks: " + stocks);
+        try (InstrumentedExecutor executor = new InstrumentedExecutor("deposit-stock", Math.max(CORES / 2, 1), 100)) {
+            final ScatterGather scatterGather = new ScatterGather(executor, executor.getQueueCapacity());
+
+            // forking - sending tasks to be processed in parallel
+            final List<DepositStockComputeTask> tasks = IntStream.rangeClosed(0, 20)
+                                                                 .mapToObj(i -> new DepositStockComputeTask())
+                                                                 .toList();
+
+            // joining - the tasks which are not completed in 2 seconds are cancelled
+            final PartialResult<Integer> stocks = scatterGather.invokeAll(tasks, Duration.ofSeconds(2));
+
+            System.out.println("Obtained stocks: " + stocks.results());
             System.out.println("The processing took " + (System.currentTimeMillis() - now) + " ms");
+            System.out.println("There are " + stocks.cancelled() + " cancelled tasks");
+            System.out.println("Executor statistics: " + executor.getStatistics());
 
-            final List<Runnable> unfinishedTasks = executorService.shutdownNow();
-            System.out.println("There are " + unfinishedTasks.size() + " unfinished tasks");
-        } catch (Exception ex) {
-            ex.printStackTrace();
+            executor.shutdownNow();
         }
     }
 
@@ -1,69 +1,125 @@
 package net.safedata.performance.training.aop.aspect;
 
+import net.safedata.performance.training.aop.profiling.AllocationProfiles;
+import net.safedata.performance.training.aop.profiling.AllocationTracking;
+import net.safedata.performance.training.aop.profiling.ExecutionTimeHistograms;
+import net.safedata.performance.training.jfr.ProfiledCallEvent;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
 
 @Aspect
 public class ProfilingAspect {
     private static final Logger LOGGER = LoggerFactory.getLogger(ProfilingAspect.class);
 
-    private static final long BYTES_IN_MB = 1048576;
-
     @Value("${execution.time.tracing}")
     private boolean executionTimeTracing;
 
+    private final ExecutionTimeHistograms executionTimeHistograms;
+    private final AllocationProfiles allocationProfiles;
+
+    public ProfilingAspect(final ExecutionTimeHistograms executionTimeHistograms,
+                           final AllocationProfiles allocationProfiles) {
+        this.executionTimeHistograms = executionTimeHistograms;
+        this.allocationProfiles = allocationProfiles;
+    }
+
     @Around("@annotation(net.safedata.performance.training.aop.profiling.ExecutionTimeProfiling)")
     public Object profileMethodExecutionTime(final ProceedingJoinPoint pjp) throws Throwable {
+        final long start = executionTimeTracing ? System.nanoTime() : 0L;
+        final ProfiledCallEvent profiledCallEvent = new ProfiledCallEvent();
+        profiledCallEvent.begin();
         try {
-            final long start = executionTimeTracing ? System.currentTimeMillis() : 0L;
-            final StringBuffer buffer = new StringBuffer();
+            return pjp.proceed();
+        } catch (final Exception exception) {
+            LOGGER.error(exception.getMessage(), exception);
+            profiledCallEvent.failed = true;
+            throw exception;
+        } finally {
+            final Method method = ((MethodSignature) pjp.getSignature()).getMethod();
             if (executionTimeTracing) {
-                buffer.append(pjp.getSignature().getDeclaringTypeName()) // package name
-                      .append(".")
-                      .append(pjp.getSignature().getName()); // class name
+                // recorded in the method's histogram - no logging and no allocation per call
+                executionTimeHistograms.record(method, System.nanoTime() - start);
             }
 
-            final Object retVal = pjp.proceed();
-            if (executionTimeTracing) {
-                LOGGER.info("{}, {}", buffer.append(": ")
-                                            .append(System.currentTimeMillis() - start)
-                                            .append(" ms"),
-                        Arrays.asList(pjp.getArgs()));
+            // committed only while a recording is running and the call exceeded the event's threshold
+            profiledCallEvent.end();
+            if (profiledCallEvent.shouldCommit()) {
+                profiledCallEvent.declaringClass = method.getDeclaringClass();
+                profiledCallEvent.method = method.getName();
+                profiledCallEvent.commit();
             }
-
-            return retVal;
-        } catch (final Exception exception) {
-            LOGGER.error(exception.getMessage(), exception);
-            throw exception;
         }
     }
 
     @Around("@annotation(net.safedata.performance.training.aop.profiling.MemoryProfiling)")
     public Object profileMemory(final ProceedingJoinPoint pjp) throws Throwable {
-        final Runtime runtime = Runtime.getRuntime();
+        final Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        final long start = System.nanoTime();
 
-        final Signature signature = pjp.getSignature();
-        final String methodName = signature.getName();
-        try {
-            long usedMemory = (runtime.totalMemory() - runtime.freeMemory()) / BYTES_IN_MB;
-            LOGGER.info("JVM memory in use before '{}': {} MB", methodName, usedMemory);
-
-            Object methodReturnValue = pjp.proceed();
-
-            usedMemory = (runtime.totalMemory() - runtime.freeMemory()) / BYTES_IN_MB;
-            LOGGER.info("JVM memory in use after '{}': {} MB", methodName, usedMemory);
+        // the bytes allocated by the current thread, plus by the tasks it passes to the allocation tracking executors
+        final AllocationTracking.Scope scope = AllocationTracking.open(allocatedBytes ->
+                allocationProfiles.record(method, allocatedBytes, System.nanoTime() - start));
 
-            return methodReturnValue;
+        // the scope is detached whatever the outcome, so that it never stays on a pooled thread
+        final Object methodReturnValue;
+        boolean proceeded = false;
+        try {
+            methodReturnValue = pjp.proceed();
+            proceeded = true;
         } catch (final Exception exception) {
             LOGGER.error(exception.getMessage(), exception);
             throw exception;
+        } finally {
+            scope.detach();
+            if (!proceeded) {
+                scope.finish();
+            }
+        }
+
+        // for the asynchronous handlers, the allocations are reported when the processing completes
+        if (methodReturnValue instanceof CompletableFuture<?> completableFuture) {
+            completableFuture.whenComplete((value, throwable) -> scope.finish());
+        } else if (methodReturnValue instanceof DeferredResult<?> deferredResult) {
+            finishOnCompletion(deferredResult, scope);
+        } else {
+            scope.finish();
+        }
+
+        return methodReturnValue;
+    }
+
+    // a DeferredResult keeps a single completion callback, which belongs to the handler - the scope is finished by an
+    // interceptor of the current request instead
+    private static void finishOnCompletion(final DeferredResult<?> deferredResult,
+                                           final AllocationTracking.Scope scope) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes requestAttributes)) {
+            scope.finish();
+            return;
         }
+
+        WebAsyncUtils.getAsyncManager(requestAttributes.getRequest())
+                     .registerDeferredResultInterceptor(scope, new DeferredResultProcessingInterceptor() {
+                         @Override
+                         public <T> void afterCompletion(final NativeWebRequest request,
+                                                         final DeferredResult<T> completed) {
+                             if (completed == deferredResult) {
+                                 scope.finish();
+                             }
+                         }
+                     });
     }
 }
@@ -0,0 +1,61 @@
+package net.safedata.performance.training.aop.profiling;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The bytes allocated by each @{@link MemoryProfiling} method, aggregated over all its invocations
+ */
+public class AllocationProfiles {
+
+    private final ConcurrentMap<Method, MethodAllocations> allocations = new ConcurrentHashMap<>();
+
+    public void record(final Method method, final long allocatedBytes, final long durationNanos) {
+        MethodAllocations methodAllocations = allocations.get(method);
+        if (methodAllocations == null) {
+            methodAllocations = allocations.computeIfAbsent(method, MethodAllocations::new);
+        }
+
+        methodAllocations.invocations.increment();
+        methodAllocations.allocatedBytes.add(allocatedBytes);
+        methodAllocations.maxAllocatedBytes.accumulate(allocatedBytes);
+        methodAllocations.durationNanos.add(durationNanos);
+    }
+
+    /**
+     * @return the statistics of each profiled method, sorted by the method name
+     */
+    public Map<String, AllocationStatistics> getStatistics() {
+        final Map<String, AllocationStatistics> statistics = new TreeMap<>();
+        allocations.values()
+                   .forEach(methodAllocations -> statistics.put(methodAllocations.name,
+                           methodAllocations.statistics()));
+        return statistics;
+    }
+
+    public void reset() {
+        allocations.clear();
+    }
+
+    private static final class MethodAllocations {
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxAllocatedBytes = new LongAccumulator(Math::max, 0);
+        private final LongAdder durationNanos = new LongAdder();
+
+        private MethodAllocations(final Method method) {
+            this.name = method.getDeclaringClass().getName() + "." + method.getName();
+        }
+
+        private AllocationStatistics statistics() {
+            return new AllocationStatistics(invocations.sum(), allocatedBytes.sum(), maxAllocatedBytes.get(),
+                    durationNanos.sum());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.safedata.performance.training.aop.profiling;
+
+/**
+ * The allocation statistics of a profiled method. The allocation rate is the allocated bytes divided by the
+ * (summed) duration of the invocations.
+ */
+public class AllocationStatistics {
+
+    private static final double BYTES_IN_MB = 1048576;
+
+    private final long invocations;
+    private final long totalBytes;
+    private final long maxBytes;
+    private final long totalDurationNanos;
+
+    public AllocationStatistics(final long invocations, final long totalBytes, final long maxBytes,
+                                final long totalDurationNanos) {
+        this.invocations = invocations;
+        this.totalBytes = totalBytes;
+        this.maxBytes = maxBytes;
+        this.totalDurationNanos = totalDurationNanos;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getMeanBytes() {
+        return invocations > 0 ? totalBytes / invocations : 0;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public double getAllocationRateMBPerSecond() {
+        return totalDurationNanos > 0 ? totalBytes / BYTES_IN_MB / (totalDurationNanos / 1e9) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("invocations: %d, mean: %d bytes, max: %d bytes, allocation rate: %.1f MB/s",
+                invocations, getMeanBytes(), maxBytes, getAllocationRateMBPerSecond());
+    }
+}
@@ -0,0 +1,160 @@
+package net.safedata.performance.training.aop.profiling;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * Measures the bytes allocated by the current thread, using
+ * {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()}, and attributes them to the current
+ * {@link Scope} - including the bytes allocated by the tasks submitted to a {@link #propagating(Executor)} executor
+ * while the scope is active, so that the allocations across the asynchronous hops are counted as well.
+ */
+public final class AllocationTracking {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMXBean();
+
+    private static final ThreadLocal<Scope> CURRENT_SCOPE = new ThreadLocal<>();
+
+    private AllocationTracking() {
+    }
+
+    public static boolean isSupported() {
+        return THREAD_MX_BEAN != null;
+    }
+
+    public static long currentThreadAllocatedBytes() {
+        return THREAD_MX_BEAN != null ? THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() : 0L;
+    }
+
+    /**
+     * Opens a scope on the current thread. The scope is closed on the current thread by {@link Scope#detach()},
+     * while the allocations are reported when {@link Scope#finish()} is called, which can happen on another thread -
+     * or later, when the last of the tasks propagated from the scope has added its allocations.
+     */
+    public static Scope open(final LongConsumer allocatedBytesConsumer) {
+        final Scope scope = new Scope(allocatedBytesConsumer, CURRENT_SCOPE.get());
+        CURRENT_SCOPE.set(scope);
+        return scope;
+    }
+
+    /**
+     * Wraps the executor, so that the allocations of the submitted tasks are added to the scope which was active when
+     * they were submitted
+     */
+    public static PropagatingExecutor propagating(final Executor executor) {
+        return new PropagatingExecutor(executor);
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean &&
+                threadMXBean.isThreadAllocatedMemorySupported()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+            return threadMXBean;
+        }
+        return null;
+    }
+
+    public static final class Scope {
+        private final LongConsumer allocatedBytesConsumer;
+        private final Scope parent;
+        private final long startBytes = currentThreadAllocatedBytes();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final AtomicInteger pendingTasks = new AtomicInteger();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean finishRequested;
+
+        private Scope(final LongConsumer allocatedBytesConsumer, final Scope parent) {
+            this.allocatedBytesConsumer = allocatedBytesConsumer;
+            this.parent = parent;
+        }
+
+        /**
+         * Adds the bytes allocated on the opening thread and restores its previous scope
+         */
+        public void detach() {
+            allocatedBytes.add(currentThreadAllocatedBytes() - startBytes);
+            CURRENT_SCOPE.set(parent);
+        }
+
+        /**
+         * Reports the allocated bytes, once all the propagated tasks have added theirs - only the first report has an
+         * effect. An asynchronous stage completes its future while its task is still running, so this may be called
+         * before the task has added its allocations.
+         */
+        public void finish() {
+            finishRequested = true;
+            reportIfDone();
+        }
+
+        private void taskSubmitted() {
+            pendingTasks.incrementAndGet();
+            if (parent != null) {
+                parent.taskSubmitted();
+            }
+        }
+
+        private void taskCompleted(final long bytes) {
+            allocatedBytes.add(bytes);
+            pendingTasks.decrementAndGet();
+            reportIfDone();
+            if (parent != null) {
+                parent.taskCompleted(bytes);
+            }
+        }
+
+        private void reportIfDone() {
+            if (finishRequested && pendingTasks.get() == 0 && finished.compareAndSet(false, true)) {
+                allocatedBytesConsumer.accept(allocatedBytes.sum());
+            }
+        }
+    }
+
+    public static final class PropagatingExecutor implements Executor, AutoCloseable {
+        private final Executor delegate;
+
+        private PropagatingExecutor(final Executor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(final Runnable task) {
+            final Scope scope = CURRENT_SCOPE.get();
+            if (scope == null) {
+                delegate.execute(task);
+                return;
+            }
+
+            scope.taskSubmitted();
+            try {
+                delegate.execute(() -> {
+                    final Scope previousScope = CURRENT_SCOPE.get();
+                    CURRENT_SCOPE.set(scope);
+                    final long startBytes = currentThreadAllocatedBytes();
+                    try {
+                        task.run();
+                    } finally {
+                        CURRENT_SCOPE.set(previousScope);
+                        scope.taskCompleted(currentThreadAllocatedBytes() - startBytes);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                scope.taskCompleted(0);
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            // the common ForkJoin pool ignores the closing
+            if (delegate instanceof ExecutorService executorService) {
+                executorService.close();
+            }
+        }
+    }
+}
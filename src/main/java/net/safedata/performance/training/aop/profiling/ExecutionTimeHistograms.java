@@ -0,0 +1,63 @@
+package net.safedata.performance.training.aop.profiling;
+
+import org.HdrHistogram.AtomicHistogram;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HDR histograms of the execution times, one per profiled method. Recording a duration is a lock-free increment of
+ * a preallocated counter, so it doesn't allocate on the hot path.
+ */
+public class ExecutionTimeHistograms {
+
+    private static final long LOWEST_DISCERNIBLE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final ConcurrentMap<Method, MethodHistogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(final Method method, final long durationNanos) {
+        MethodHistogram methodHistogram = histograms.get(method);
+        if (methodHistogram == null) {
+            methodHistogram = histograms.computeIfAbsent(method, MethodHistogram::new);
+        }
+
+        methodHistogram.histogram.recordValue(Math.min(Math.max(durationNanos, LOWEST_DISCERNIBLE_NANOS),
+                HIGHEST_TRACKABLE_NANOS));
+    }
+
+    /**
+     * @return the statistics of each profiled method, sorted by the method name
+     */
+    public Map<String, ExecutionTimeStatistics> getStatistics() {
+        final Map<String, ExecutionTimeStatistics> statistics = new TreeMap<>();
+        histograms.values()
+                  .forEach(methodHistogram -> statistics.put(methodHistogram.name, methodHistogram.statistics()));
+        return statistics;
+    }
+
+    public void reset() {
+        histograms.values()
+                  .forEach(methodHistogram -> methodHistogram.histogram.reset());
+    }
+
+    private static final class MethodHistogram {
+        private final String name;
+        private final AtomicHistogram histogram;
+
+        private MethodHistogram(final Method method) {
+            this.name = method.getDeclaringClass().getName() + "." + method.getName();
+            this.histogram = new AtomicHistogram(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS,
+                    SIGNIFICANT_DIGITS);
+        }
+
+        private ExecutionTimeStatistics statistics() {
+            return ExecutionTimeStatistics.of(histogram);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package net.safedata.performance.training.aop.profiling;
+
+import org.HdrHistogram.AbstractHistogram;
+
+/**
+ * The execution time statistics of a profiled method, in milliseconds
+ */
+public class ExecutionTimeStatistics {
+
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    public ExecutionTimeStatistics(final long count, final double mean, final double p50, final double p90,
+                                   final double p99, final double p999, final double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * @return the statistics of a histogram of durations recorded in nanoseconds
+     */
+    public static ExecutionTimeStatistics of(final AbstractHistogram histogram) {
+        // a copy, so that all the percentiles are computed over the same values
+        final AbstractHistogram snapshot = histogram.copy();
+        return new ExecutionTimeStatistics(snapshot.getTotalCount(), toMillis(snapshot.getMean()),
+                toMillis(snapshot.getValueAtPercentile(50)), toMillis(snapshot.getValueAtPercentile(90)),
+                toMillis(snapshot.getValueAtPercentile(99)), toMillis(snapshot.getValueAtPercentile(99.9)),
+                toMillis(snapshot.getMaxValue()));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getP999() {
+        return p999;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d, mean: %.3f ms, p50: %.3f ms, p90: %.3f ms, p99: %.3f ms, p99.9: %.3f ms, " +
+                "max: %.3f ms", count, mean, p50, p90, p99, p999, max);
+    }
+
+    private static double toMillis(final double nanos) {
+        return nanos / 1_000_000;
+    }
+}
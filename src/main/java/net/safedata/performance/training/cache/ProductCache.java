@@ -0,0 +1,209 @@
+package net.safedata.performance.training.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import net.safedata.performance.training.concurrent.BatchingLoader;
+import net.safedata.performance.training.domain.model.ProductEntity;
+import net.safedata.performance.training.domain.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache in front of the products database, using Caffeine - a size bounded, W-TinyLFU evicted cache.
+ * <p>
+ * A miss is loaded once per key, the concurrent readers of the same key waiting for that load, so a popular entry
+ * expiring doesn't cause a stampede of identical queries. The missing products are cached as well, for a shorter
+ * time, so that the lookups of unknown ids don't reach the database every time.
+ * <p>
+ * The misses of different ids are not loaded one by one: the ids missed within a short window are loaded together, by
+ * a single 'WHERE id IN (...)' query - see 'products.cache.batching.*'.
+ * <p>
+ * The writes go through {@link #saveAll(List)}, which invalidates the affected entries after the commit - an
+ * invalidation done before the commit could be followed by a reload of the old rows. Each invalidation also increments
+ * the {@link #getDataVersion() data version}, used by the derived caches.
+ */
+@Component
+public class ProductCache {
+
+    private static final String ALL_PRODUCTS_KEY = "all-products";
+
+    private final ProductRepository productRepository;
+
+    private final BatchingLoader<Long, ProductEntity> productsLoader;
+    private final AsyncLoadingCache<Long, Optional<ProductEntity>> productsById;
+    private final Cache<String, List<ProductEntity>> allProducts;
+
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    private final Duration ttl;
+    private final Duration allProductsTtl;
+
+    @Autowired
+    public ProductCache(final ProductRepository productRepository,
+                        @Value("${products.cache.max-size:100000}") final long maxSize,
+                        @Value("${products.cache.ttl:10m}") final Duration ttl,
+                        @Value("${products.cache.missing-ttl:30s}") final Duration missingTtl,
+                        @Value("${products.cache.all-products-ttl:30s}") final Duration allProductsTtl,
+                        @Value("${products.cache.batching.max-batch-size:100}") final int maxBatchSize,
+                        @Value("${products.cache.batching.max-wait:2ms}") final Duration maxBatchWait) {
+        this.productRepository = productRepository;
+        this.ttl = ttl;
+        this.allProductsTtl = allProductsTtl;
+
+        this.productsLoader = new BatchingLoader<>("products-by-id", this::findAllById, maxBatchSize, maxBatchWait);
+        this.productsById = Caffeine.newBuilder()
+                                    .maximumSize(maxSize)
+                                    .expireAfter(new PresenceExpiry(ttl, missingTtl))
+                                    .recordStats()
+                                    .buildAsync((id, executor) -> productsLoader.load(id)
+                                                                                .thenApply(Optional::ofNullable));
+
+        // a single entry - the whole table, shared by all the readers until it expires or the products are written
+        this.allProducts = Caffeine.newBuilder()
+                                   .maximumSize(1)
+                                   .expireAfterWrite(allProductsTtl)
+                                   .recordStats()
+                                   .build();
+    }
+
+    public Optional<ProductEntity> getProduct(final long id) {
+        try {
+            return productsById.get(id).join();
+        } catch (final CompletionException exception) {
+            // rethrows the exception of the bulk load, as if it was executed by the caller
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * @param loader the query of all the products, executed only on a miss
+     */
+    public List<ProductEntity> getAllProducts(final Supplier<List<ProductEntity>> loader) {
+        return allProducts.get(ALL_PRODUCTS_KEY, key -> Collections.unmodifiableList(loader.get()));
+    }
+
+    public List<ProductEntity> saveAll(final List<ProductEntity> products) {
+        final List<ProductEntity> savedProducts = productRepository.saveAll(products);
+        final List<Long> savedIds = savedProducts.stream()
+                                                 .map(ProductEntity::getId)
+                                                 .toList();
+        afterCommit(() -> {
+            productsById.synchronous().invalidateAll(savedIds);
+            allProducts.invalidateAll();
+            dataVersion.incrementAndGet();
+        });
+        return savedProducts;
+    }
+
+    /**
+     * Invalidates all the entries, e.g. after the products were written by bulk inserts, bypassing the repository
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            productsById.synchronous().invalidateAll();
+            allProducts.invalidateAll();
+            dataVersion.incrementAndGet();
+        });
+    }
+
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * @return how long a found product is cached - its changes not made through this cache are seen after this time
+     */
+    public Duration getProductTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return how long all the products are cached - their changes not made through this cache are seen after this time
+     */
+    public Duration getAllProductsTtl() {
+        return allProductsTtl;
+    }
+
+    public CacheStats getProductsByIdStats() {
+        return productsById.synchronous().stats();
+    }
+
+    public CacheStats getAllProductsStats() {
+        return allProducts.stats();
+    }
+
+    public long getProductsByIdSize() {
+        return productsById.synchronous().estimatedSize();
+    }
+
+    public BatchingLoader<Long, ProductEntity> getProductsLoader() {
+        return productsLoader;
+    }
+
+    @PreDestroy
+    public void close() {
+        productsLoader.close();
+    }
+
+    // a single 'WHERE id IN (...)' query
+    private Map<Long, ProductEntity> findAllById(final List<Long> ids) {
+        return productRepository.findAllById(ids)
+                                .stream()
+                                .collect(Collectors.toMap(ProductEntity::getId, Function.identity()));
+    }
+
+    private static void afterCommit(final Runnable invalidation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        } else {
+            invalidation.run();
+        }
+    }
+
+    // the found products live for the TTL, the missing ones for a shorter time
+    private record PresenceExpiry(Duration ttl, Duration missingTtl) implements Expiry<Long, Optional<ProductEntity>> {
+
+        @Override
+        public long expireAfterCreate(final Long id, final Optional<ProductEntity> product, final long currentTime) {
+            return (product.isPresent() ? ttl : missingTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(final Long id, final Optional<ProductEntity> product, final long currentTime,
+                                      final long currentDuration) {
+            return expireAfterCreate(id, product, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(final Long id, final Optional<ProductEntity> product, final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
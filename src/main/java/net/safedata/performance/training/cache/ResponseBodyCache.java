@@ -0,0 +1,147 @@
+package net.safedata.performance.training.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Caches the JSON encoded form of the responses, so that a hot payload is serialized once per data version, instead of
+ * once per request. The cached bytes are written as they are, with a strong ETag - the SHA-256 digest of their content,
+so different bodies never share an ETag, whatever their data version.
+ * <p>
+ * The cache is bounded by the total size of the cached bytes. The data version changes only for the writes made through
+ * {@link ProductCache}, so each entry also expires after a fixed time from its encoding - at most the TTL of the data it
+ * was encoded from, so a response is never staler than that data. The entries of the previous data versions are no
+ * longer read, and expire in the same way.
+ */
+@Component
+public class ResponseBodyCache {
+
+    /**
+     * @param endpoint    the request mapping
+     * @param parameters  the request parameters which change the response
+     * @param dataVersion the version of the data, changed by each write
+     * @param pretty      whether the JSON is indented
+     */
+    public record ResponseKey(String endpoint, String parameters, long dataVersion, boolean pretty) {
+    }
+
+    public record EncodedResponse(byte[] body, String eTag) {
+    }
+
+    private final ObjectWriter compactWriter;
+    private final ObjectWriter prettyWriter;
+    private final boolean enabled;
+    private final Duration maxExpiry;
+    private final Duration pageTtl;
+
+    private final Cache<ResponseKey, CachedResponse> encodedResponses;
+
+    @Autowired
+    public ResponseBodyCache(final JsonMapper jsonMapper,
+                             @Value("${products.response-cache.enabled:true}") final boolean enabled,
+                             @Value("${products.response-cache.max-size:256MB}") final DataSize maxSize,
+                             @Value("${products.response-cache.expire-after-write:10m}") final Duration maxExpiry,
+                             @Value("${products.response-cache.page-ttl:5s}") final Duration pageTtl) {
+        this.compactWriter = jsonMapper.writer();
+        this.prettyWriter = jsonMapper.writerWithDefaultPrettyPrinter();
+        this.enabled = enabled;
+        this.maxExpiry = maxExpiry;
+        this.pageTtl = pageTtl;
+
+        this.encodedResponses = Caffeine.newBuilder()
+                                        .maximumWeight(maxSize.toBytes())
+                                        .<ResponseKey, CachedResponse>weigher((key, cached) ->
+                                                cached.response().body().length)
+                                        .expireAfter(new WriteExpiry())
+                                        .recordStats()
+                                        .build();
+    }
+
+    /**
+     * @param dataTtl how long the data of the body may be cached by its source - the encoded body expires after the
+     *                smallest of it and of the configured expiry
+     * @param body    the response body, retrieved and encoded only on a miss - once, for the concurrent requests
+     */
+    public EncodedResponse get(final ResponseKey key, final Duration dataTtl, final Supplier<?> body) {
+        if (!enabled) {
+            return encode(key, body.get());
+        }
+        final long expiryNanos = Math.min(dataTtl.toNanos(), maxExpiry.toNanos());
+        return encodedResponses.get(key, missingKey -> new CachedResponse(encode(missingKey, body.get()), expiryNanos))
+                               .response();
+    }
+
+    /**
+     * @return how long an encoded page of products may be cached - the pages are read from the database, without a
+     * cache of their own, so the writes which bypass the {@link ProductCache} are visible after at most this time
+     */
+    public Duration getPageTtl() {
+        return pageTtl;
+    }
+
+    public CacheStats getStats() {
+        return encodedResponses.stats();
+    }
+
+    public long getSizeInBytes() {
+        return encodedResponses.policy()
+                               .eviction()
+                               .map(eviction -> eviction.weightedSize().orElse(0))
+                               .orElse(0L);
+    }
+
+    private EncodedResponse encode(final ResponseKey key, final Object body) {
+        final byte[] encodedBody = (key.pretty() ? prettyWriter : compactWriter).writeValueAsBytes(body);
+
+        final String eTag = "\"" + HexFormat.of().formatHex(sha256(encodedBody)) + "\"";
+        return new EncodedResponse(encodedBody, eTag);
+    }
+
+    private static byte[] sha256(final byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                                .digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform implements SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CachedResponse(EncodedResponse response, long expiryNanos) {
+    }
+
+    // expires after the write, whatever the number of reads - a hot entry would otherwise never expire
+    private static final class WriteExpiry implements Expiry<ResponseKey, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(final ResponseKey key, final CachedResponse cached, final long currentTime) {
+            return cached.expiryNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(final ResponseKey key, final CachedResponse cached, final long currentTime,
+                                      final long currentDuration) {
+            return cached.expiryNanos();
+        }
+
+        @Override
+        public long expireAfterRead(final ResponseKey key, final CachedResponse cached, final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package net.safedata.performance.training.catalog;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.StoreSection;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * A compound filter of the {@link ProductCatalog} products, optionally limited to the cheapest or to the most
+ * expensive K products
+ */
+public final class CatalogQuery {
+
+    public enum Order {
+        CHEAPEST_FIRST,
+        MOST_EXPENSIVE_FIRST
+    }
+
+    private final Set<StoreSection> sections;
+    private final Integer storeId;
+    private final double minPrice;
+    private final double maxPrice;
+    private final boolean discountedOnly;
+    private final Discount.Type discountType;
+    private final Order order;
+    private final int limit;
+
+    private CatalogQuery(final Builder builder) {
+        this.sections = builder.sections.isEmpty() ? EnumSet.allOf(StoreSection.class)
+                                                   : EnumSet.copyOf(builder.sections);
+        this.storeId = builder.storeId;
+        this.minPrice = builder.minPrice;
+        this.maxPrice = builder.maxPrice;
+        this.discountedOnly = builder.discountedOnly || builder.discountType != null;
+        this.discountType = builder.discountType;
+        this.order = builder.order;
+        this.limit = builder.limit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Set<StoreSection> getSections() {
+        return sections;
+    }
+
+    public Integer getStoreId() {
+        return storeId;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public boolean isDiscountedOnly() {
+        return discountedOnly;
+    }
+
+    public Discount.Type getDiscountType() {
+        return discountType;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public static final class Builder {
+        private final Set<StoreSection> sections = EnumSet.noneOf(StoreSection.class);
+        private Integer storeId;
+        private double minPrice = Double.NEGATIVE_INFINITY;
+        private double maxPrice = Double.POSITIVE_INFINITY;
+        private boolean discountedOnly;
+        private Discount.Type discountType;
+        private Order order = Order.CHEAPEST_FIRST;
+        private int limit = Integer.MAX_VALUE;
+
+        private Builder() {
+        }
+
+        /**
+         * Restricts the query to the given sections - all the sections are queried by default
+         */
+        public Builder inSections(final StoreSection... storeSections) {
+            Collections.addAll(sections, storeSections);
+            return this;
+        }
+
+        public Builder inStore(final int id) {
+            this.storeId = id;
+            return this;
+        }
+
+        /**
+         * @param min the minimum price, inclusive
+         * @param max the maximum price, inclusive
+         */
+        public Builder priceBetween(final double min, final double max) {
+            if (min > max) {
+                throw new IllegalArgumentException("The minimum price cannot be greater than the maximum price");
+            }
+            this.minPrice = min;
+            this.maxPrice = max;
+            return this;
+        }
+
+        public Builder discountedOnly() {
+            this.discountedOnly = true;
+            return this;
+        }
+
+        public Builder withDiscountType(final Discount.Type type) {
+            this.discountType = type;
+            return this;
+        }
+
+        public Builder cheapestFirst(final int count) {
+            return top(Order.CHEAPEST_FIRST, count);
+        }
+
+        public Builder mostExpensiveFirst(final int count) {
+            return top(Order.MOST_EXPENSIVE_FIRST, count);
+        }
+
+        public CatalogQuery build() {
+            return new CatalogQuery(this);
+        }
+
+        private Builder top(final Order topOrder, final int count) {
+            if (count < 1) {
+                throw new IllegalArgumentException("The number of products must be positive");
+            }
+            this.order = topOrder;
+            this.limit = count;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package net.safedata.performance.training.catalog;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.model.Section;
+import net.safedata.performance.training.model.Store;
+import net.safedata.performance.training.model.StoreSection;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates random stores, with the same number of products in each of their sections. The product names are shared
+ * between the stores, to keep the footprint of large catalogs low.
+ */
+public final class DemoStores {
+
+    private static final int MODELS = 1000;
+
+    private static final String[][] NAMES = new String[StoreSection.values().length][MODELS];
+
+    static {
+        for (final StoreSection storeSection : StoreSection.values()) {
+            for (int model = 0; model < MODELS; model++) {
+                NAMES[storeSection.ordinal()][model] = storeSection.name() + " model " + model;
+            }
+        }
+    }
+
+    private DemoStores() {
+    }
+
+    public static List<Store> generate(final int firstStoreId, final int count, final int productsPerSection) {
+        final List<Store> stores = new ArrayList<>(count);
+        for (int storeId = firstStoreId; storeId < firstStoreId + count; storeId++) {
+            stores.add(generate(storeId, productsPerSection));
+        }
+        return stores;
+    }
+
+    public static Store generate(final int storeId, final int productsPerSection) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Set<Section> sections = new HashSet<>();
+
+        for (final StoreSection storeSection : StoreSection.values()) {
+            final List<Product> products = new ArrayList<>(productsPerSection);
+            for (int index = 0; index < productsPerSection; index++) {
+                final Discount discount = random.nextInt(10) == 0
+                        ? new Discount(random.nextInt(1, 50), Discount.Type.values()[random.nextInt(2)])
+                        : null;
+                products.add(new Product(index, NAMES[storeSection.ordinal()][random.nextInt(MODELS)],
+                        random.nextInt(10, 500000) / 100d, discount));
+            }
+            sections.add(new Section(storeSection.ordinal(), storeSection, products));
+        }
+        return new Store(storeId, "Store " + storeId, "Location " + storeId, sections);
+    }
+}
@@ -0,0 +1,200 @@
+package net.safedata.performance.training.catalog;
+
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.model.Section;
+import net.safedata.performance.training.model.Store;
+import net.safedata.performance.training.model.StoreSection;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * An in-memory index of the products of the stores, bucketed by their store section and sorted by price, for the
+ * compound queries of the {@link CatalogQuery}.
+ * <p>
+ * The readers use an immutable snapshot of the section indexes, without any locking; the (serialized) updates build
+ * new indexes for the affected sections only and publish them atomically, so the concurrent queries see either the
+ * previous or the updated catalog, never a partially updated one.
+ */
+@Component
+public class ProductCatalog {
+
+    private volatile Map<StoreSection, SectionIndex> sections = emptySections();
+
+    /**
+     * Adds the products of the given stores to the catalog, replacing the products they previously had. The sections
+     * without a name cannot be queried, so they are skipped
+     *
+     * @throws IllegalArgumentException if a product has no price, in which case the catalog is not changed
+     */
+    public synchronized void putStores(final Collection<Store> stores) {
+        final Map<StoreSection, List<SectionIndex.Entry>> added = new EnumMap<>(StoreSection.class);
+        final int[] storeIds = new int[stores.size()];
+        int storeIndex = 0;
+
+        for (final Store store : stores) {
+            storeIds[storeIndex++] = store.getId();
+            if (store.getStoreSections() == null) {
+                continue;
+            }
+
+            for (final Section section : store.getStoreSections()) {
+                if (section == null || section.getName() == null) {
+                    continue;
+                }
+
+                final List<SectionIndex.Entry> entries = added.computeIfAbsent(section.getName(),
+                        name -> new ArrayList<>());
+                for (final Product product : section.getProducts().orElse(List.of())) {
+                    // a NaN price would break the price order of the section index
+                    if (Double.isNaN(product.getPrice())) {
+                        throw new IllegalArgumentException("The product " + product.getId() + " of the store " +
+                                store.getId() + " has no price");
+                    }
+                    entries.add(new SectionIndex.Entry(store.getId(), product));
+                }
+            }
+        }
+
+        update(storeIds, added);
+    }
+
+    public void putStore(final Store store) {
+        putStores(List.of(store));
+    }
+
+    public synchronized void removeStore(final int storeId) {
+        update(new int[] {storeId}, Map.of());
+    }
+
+    /**
+     * @return the matching products, in the order of the query; for a top K query, at most K products are returned
+     */
+    public List<Product> find(final CatalogQuery query) {
+        final Map<StoreSection, SectionIndex> current = sections;
+        final int limit = query.getLimit();
+        final boolean ascending = query.getOrder() == CatalogQuery.Order.CHEAPEST_FIRST;
+
+        // the best K products of each section, merged afterwards by their price
+        final List<int[]> sectionMatches = new ArrayList<>();
+        final List<SectionIndex> matchedSections = new ArrayList<>();
+        for (final StoreSection storeSection : query.getSections()) {
+            final SectionIndex index = current.get(storeSection);
+            final PositionBuffer matches = new PositionBuffer();
+            index.scan(query, position -> matches.add(position) < limit);
+            if (matches.size > 0) {
+                sectionMatches.add(matches.toArray());
+                matchedSections.add(index);
+            }
+        }
+
+        if (matchedSections.size() == 1) {
+            return toProducts(matchedSections.getFirst(), sectionMatches.getFirst());
+        }
+
+        final int[] heads = new int[matchedSections.size()];
+        final List<Product> products = new ArrayList<>();
+        while (products.size() < limit) {
+            int best = -1;
+            for (int section = 0; section < heads.length; section++) {
+                if (heads[section] == sectionMatches.get(section).length) {
+                    continue;
+                }
+                if (best == -1 || isBefore(price(matchedSections, sectionMatches, heads, section),
+                        price(matchedSections, sectionMatches, heads, best), ascending)) {
+                    best = section;
+                }
+            }
+            if (best == -1) {
+                break;
+            }
+            products.add(matchedSections.get(best).product(sectionMatches.get(best)[heads[best]++]));
+        }
+        return products;
+    }
+
+    public int count(final CatalogQuery query) {
+        final Map<StoreSection, SectionIndex> current = sections;
+        return query.getSections()
+                    .stream()
+                    .mapToInt(storeSection -> current.get(storeSection).count(query))
+                    .sum();
+    }
+
+    public int size() {
+        return sections.values()
+                       .stream()
+                       .mapToInt(SectionIndex::size)
+                       .sum();
+    }
+
+    public synchronized void clear() {
+        sections = emptySections();
+    }
+
+    private void update(final int[] storeIds, final Map<StoreSection, List<SectionIndex.Entry>> added) {
+        final int[] replacedStores = storeIds.clone();
+        Arrays.sort(replacedStores);
+        final IntPredicate replaced = storeId -> Arrays.binarySearch(replacedStores, storeId) >= 0;
+
+        final Map<StoreSection, SectionIndex> updated = new EnumMap<>(sections);
+        for (final StoreSection storeSection : StoreSection.values()) {
+            final List<SectionIndex.Entry> entries = added.getOrDefault(storeSection, List.of());
+            final SectionIndex addedIndex = entries.isEmpty()
+                    ? SectionIndex.EMPTY
+                    : SectionIndex.of(entries.toArray(SectionIndex.Entry[]::new));
+            updated.put(storeSection, updated.get(storeSection).update(replaced, addedIndex));
+        }
+        sections = Collections.unmodifiableMap(updated);
+    }
+
+    private static double price(final List<SectionIndex> indexes, final List<int[]> matches, final int[] heads,
+                                final int section) {
+        return indexes.get(section).price(matches.get(section)[heads[section]]);
+    }
+
+    private static boolean isBefore(final double price, final double other, final boolean ascending) {
+        return ascending ? price < other : price > other;
+    }
+
+    private static List<Product> toProducts(final SectionIndex index, final int[] positions) {
+        final List<Product> products = new ArrayList<>(positions.length);
+        for (final int position : positions) {
+            products.add(index.product(position));
+        }
+        return products;
+    }
+
+    private static Map<StoreSection, SectionIndex> emptySections() {
+        final Map<StoreSection, SectionIndex> empty = new EnumMap<>(StoreSection.class);
+        for (final StoreSection storeSection : StoreSection.values()) {
+            empty.put(storeSection, SectionIndex.EMPTY);
+        }
+        return Collections.unmodifiableMap(empty);
+    }
+
+    private static final class PositionBuffer {
+        private int[] positions = new int[16];
+        private int size;
+
+        // returns the number of buffered positions
+        int add(final int position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package net.safedata.performance.training.catalog;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntPredicate;
+
+/**
+ * The immutable index of the products of a store section: the products sorted by price, with their store ids in a
+ * parallel column and their discounts marked in bitmaps, indexed by the price position.
+ * <p>
+ * A price range is found by binary searches, then only the positions in the range are scanned - word by word in the
+ * discount bitmaps, for the queries of the discounted products.
+ */
+final class SectionIndex {
+
+    static final SectionIndex EMPTY = new SectionIndex(new double[0], new int[0], new Product[0]);
+
+    record Entry(int storeId, Product product) {
+    }
+
+    private final int size;
+    private final double[] prices;
+    private final int[] storeIds;
+    private final Product[] products;
+    private final long[] discounted;
+    private final long[] percentDiscounts;
+
+    private SectionIndex(final double[] prices, final int[] storeIds, final Product[] products) {
+        this(prices, storeIds, products, new long[words(prices.length)], new long[words(prices.length)]);
+
+        for (int index = 0; index < size; index++) {
+            final Discount discount = products[index].getDiscount().orElse(null);
+            if (discount != null) {
+                discounted[index >>> 6] |= 1L << index;
+                if (discount.getDiscountType() == Discount.Type.Percent) {
+                    percentDiscounts[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+    }
+
+    private SectionIndex(final double[] prices, final int[] storeIds, final Product[] products,
+                         final long[] discounted, final long[] percentDiscounts) {
+        this.size = prices.length;
+        this.prices = prices;
+        this.storeIds = storeIds;
+        this.products = products;
+        this.discounted = discounted;
+        this.percentDiscounts = percentDiscounts;
+    }
+
+    static SectionIndex of(final Entry[] entries) {
+        final Entry[] sorted = entries.clone();
+        Arrays.parallelSort(sorted, Comparator.comparingDouble(entry -> entry.product().getPrice()));
+
+        final double[] prices = new double[sorted.length];
+        final int[] storeIds = new int[sorted.length];
+        final Product[] products = new Product[sorted.length];
+        for (int index = 0; index < sorted.length; index++) {
+            prices[index] = sorted[index].product().getPrice();
+            storeIds[index] = sorted[index].storeId();
+            products[index] = sorted[index].product();
+        }
+        return new SectionIndex(prices, storeIds, products);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return a new index, without the products of the removed stores and with the added products - merged in a
+     * single pass, as both indexes are sorted by price
+     */
+    SectionIndex update(final IntPredicate removedStore, final SectionIndex added) {
+        int kept = 0;
+        for (int index = 0; index < size; index++) {
+            if (!removedStore.test(storeIds[index])) {
+                kept++;
+            }
+        }
+
+        if (kept == size && added.size == 0) {
+            return this;
+        }
+
+        final int mergedSize = kept + added.size;
+        final double[] mergedPrices = new double[mergedSize];
+        final int[] mergedStoreIds = new int[mergedSize];
+        final Product[] mergedProducts = new Product[mergedSize];
+        final long[] mergedDiscounted = new long[words(mergedSize)];
+        final long[] mergedPercentDiscounts = new long[words(mergedSize)];
+
+        int current = 0;
+        int other = 0;
+        for (int merged = 0; merged < mergedSize; merged++) {
+            while (current < size && removedStore.test(storeIds[current])) {
+                current++;
+            }
+
+            final boolean takeCurrent = other == added.size ||
+                    (current < size && prices[current] <= added.prices[other]);
+            final SectionIndex source = takeCurrent ? this : added;
+            final int position = takeCurrent ? current++ : other++;
+
+            mergedPrices[merged] = source.prices[position];
+            mergedStoreIds[merged] = source.storeIds[position];
+            mergedProducts[merged] = source.products[position];
+            mergedDiscounted[merged >>> 6] |= ((source.discounted[position >>> 6] >>> position) & 1L) << merged;
+            mergedPercentDiscounts[merged >>> 6] |=
+                    ((source.percentDiscounts[position >>> 6] >>> position) & 1L) << merged;
+        }
+        return new SectionIndex(mergedPrices, mergedStoreIds, mergedProducts, mergedDiscounted,
+                mergedPercentDiscounts);
+    }
+
+    /**
+     * Passes the positions of the matching products to the visitor, in the query's price order, until the visitor
+     * returns false
+     */
+    void scan(final CatalogQuery query, final PositionVisitor visitor) {
+        final int from = lowerBound(query.getMinPrice());
+        final int to = upperBound(query.getMaxPrice());
+        if (from >= to) {
+            return;
+        }
+
+        final int firstWord = from >>> 6;
+        final int lastWord = (to - 1) >>> 6;
+        final boolean ascending = query.getOrder() == CatalogQuery.Order.CHEAPEST_FIRST;
+        final boolean anyStore = query.getStoreId() == null;
+        final int storeId = anyStore ? 0 : query.getStoreId();
+
+        for (int step = 0; step <= lastWord - firstWord; step++) {
+            final int word = ascending ? firstWord + step : lastWord - step;
+            long bits = candidates(word, query);
+            if (word == firstWord) {
+                bits &= -1L << (from & 63);
+            }
+            if (word == lastWord) {
+                bits &= -1L >>> (63 - ((to - 1) & 63));
+            }
+
+            while (bits != 0) {
+                final int bit = ascending ? Long.numberOfTrailingZeros(bits) : 63 - Long.numberOfLeadingZeros(bits);
+                bits &= ~(1L << bit);
+
+                final int position = (word << 6) + bit;
+                if (!anyStore && storeIds[position] != storeId) {
+                    continue;
+                }
+                if (!visitor.visit(position)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of matching products - counted a word at a time, if the store is not filtered
+     */
+    int count(final CatalogQuery query) {
+        if (query.getStoreId() != null) {
+            final int[] count = new int[1];
+            scan(query, position -> {
+                count[0]++;
+                return true;
+            });
+            return count[0];
+        }
+
+        final int from = lowerBound(query.getMinPrice());
+        final int to = upperBound(query.getMaxPrice());
+        if (from >= to) {
+            return 0;
+        }
+
+        final int firstWord = from >>> 6;
+        final int lastWord = (to - 1) >>> 6;
+        int count = 0;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long bits = candidates(word, query);
+            if (word == firstWord) {
+                bits &= -1L << (from & 63);
+            }
+            if (word == lastWord) {
+                bits &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            count += Long.bitCount(bits);
+        }
+        return count;
+    }
+
+    double price(final int position) {
+        return prices[position];
+    }
+
+    Product product(final int position) {
+        return products[position];
+    }
+
+    @FunctionalInterface
+    interface PositionVisitor {
+        boolean visit(int position);
+    }
+
+    // the positions of the word which can match the discount criteria
+    private long candidates(final int word, final CatalogQuery query) {
+        if (!query.isDiscountedOnly()) {
+            return -1L;
+        }
+
+        final Discount.Type discountType = query.getDiscountType();
+        if (discountType == null) {
+            return discounted[word];
+        }
+        return discountType == Discount.Type.Percent ? discounted[word] & percentDiscounts[word]
+                                                     : discounted[word] & ~percentDiscounts[word];
+    }
+
+    // the first position with a price greater than or equal to the given one
+    private int lowerBound(final double price) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (prices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // the first position with a price greater than the given one
+    private int upperBound(final double price) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (prices[middle] <= price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int words(final int bits) {
+        return (bits + Long.SIZE - 1) >>> 6;
+    }
+}
@@ -0,0 +1,102 @@
+package net.safedata.performance.training.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the values written by a {@link BinaryWriter}
+ */
+class BinaryReader {
+
+    private final List<String> strings = new ArrayList<>();
+    private byte[] previousString = new byte[0];
+
+    private final byte[] buffer;
+    private int position;
+
+    BinaryReader(final byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        checkAvailable(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int current = readByte();
+            value |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at position " + position);
+    }
+
+    int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    long readZigZagLong() {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readZigZagInt() {
+        final int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    double readDouble() {
+        checkAvailable(Long.BYTES);
+        long bits = 0;
+        for (int index = 0; index < Long.BYTES; index++) {
+            bits = (bits << 8) | (buffer[position++] & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    String readString() {
+        final int reference = readVarInt();
+        if (reference == BinaryWriter.NULL_STRING) {
+            return null;
+        }
+        if (reference != BinaryWriter.NEW_STRING) {
+            final int index = reference - BinaryWriter.FIRST_STRING_INDEX;
+            if (index < 0 || index >= strings.size()) {
+                throw new IllegalArgumentException("Unknown string reference " + reference);
+            }
+            return strings.get(index);
+        }
+
+        final int prefix = readVarInt();
+        final int suffix = readVarInt();
+        if (prefix < 0 || prefix > previousString.length || suffix < 0) {
+            throw new IllegalArgumentException("Malformed string at position " + position);
+        }
+        checkAvailable(suffix);
+
+        final byte[] bytes = Arrays.copyOf(previousString, prefix + suffix);
+        System.arraycopy(buffer, position, bytes, prefix, suffix);
+        position += suffix;
+        previousString = bytes;
+
+        final String value = new String(bytes, StandardCharsets.UTF_8);
+        strings.add(value);
+        return value;
+    }
+
+    boolean hasRemaining() {
+        return position < buffer.length;
+    }
+
+    private void checkAvailable(final int bytes) {
+        if (bytes > buffer.length - position) {
+            throw new IllegalArgumentException("Unexpected end of the encoded data, at position " + position);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package net.safedata.performance.training.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the primitive values of the binary encoding to a growing byte array: unsigned and zig-zag varints, raw
+ * doubles and table-coded strings.
+ * <p>
+ * A string is written in full only the first time, as the suffix which differs from the previously written string;
+ * afterwards it is written as its index in the table of the already written strings.
+ */
+class BinaryWriter {
+
+    static final int NULL_STRING = 0;
+    static final int NEW_STRING = 1;
+    static final int FIRST_STRING_INDEX = 2;
+
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private byte[] previousString = new byte[0];
+
+    private byte[] buffer;
+    private int position;
+
+    BinaryWriter(final int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    void writeByte(final int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarInt(final int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeZigZagLong(final long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeZigZagInt(final int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    void writeDouble(final double value) {
+        ensureCapacity(Long.BYTES);
+        final long bits = Double.doubleToRawLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (bits >>> shift);
+        }
+    }
+
+    void writeString(final String value) {
+        if (value == null) {
+            writeVarInt(NULL_STRING);
+            return;
+        }
+
+        final Integer index = stringIndexes.get(value);
+        if (index != null) {
+            writeVarInt(index + FIRST_STRING_INDEX);
+            return;
+        }
+        stringIndexes.put(value, stringIndexes.size());
+
+        // front coding - e.g. 'The product 124' after 'The product 123' is written as (14, '4')
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        final int mismatch = Arrays.mismatch(previousString, bytes);
+        final int prefix = mismatch < 0 ? bytes.length : mismatch;
+        writeVarInt(NEW_STRING);
+        writeVarInt(prefix);
+        writeVarInt(bytes.length - prefix);
+        ensureCapacity(bytes.length - prefix);
+        System.arraycopy(bytes, prefix, buffer, position, bytes.length - prefix);
+        position += bytes.length - prefix;
+
+        previousString = bytes;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(final int bytes) {
+        if (position + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(position + bytes, buffer.length << 1));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package net.safedata.performance.training.codec;
+
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.model.Store;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractSmartHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the {@link Product} lists and the {@link Store}s as 'application/octet-stream', using the
+ * {@link ModelCodec} binary encoding. It never matches a wildcard, so it is used only when the
+ * client explicitly accepts (or sends) the binary content type - JSON stays the default representation.
+ */
+public class ModelBinaryHttpMessageConverter extends AbstractSmartHttpMessageConverter<Object> {
+
+    public ModelBinaryHttpMessageConverter() {
+        super(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    @Override
+    protected boolean supports(final Class<?> clazz) {
+        return Store.class.isAssignableFrom(clazz) || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(final ResolvableType type, final MediaType mediaType) {
+        return (isStore(type) || isProductList(type)) && canRead(mediaType);
+    }
+
+    // a wildcard never selects the binary encoding. A null media type is passed while listing the producible content
+    // types, in which the custom converters come before the JSON one, so the binary type is listed only when accepted
+    // explicitly by the current request
+    @Override
+    public boolean canWrite(final ResolvableType type, final Class<?> valueClass, final MediaType mediaType) {
+        if (!Store.class.isAssignableFrom(valueClass) && !isProductList(type)) {
+            return false;
+        }
+        return mediaType != null ? mediaType.isConcrete() && canWrite(mediaType)
+                                 : isAcceptedExplicitly();
+    }
+
+    @Override
+    public Object read(final ResolvableType type, final HttpInputMessage inputMessage,
+                       final Map<String, Object> hints) throws IOException, HttpMessageNotReadableException {
+        final byte[] encoded = inputMessage.getBody().readAllBytes();
+        try {
+            return isStore(type) ? ModelCodec.decodeStore(encoded) : ModelCodec.decodeProducts(encoded);
+        } catch (IllegalArgumentException ex) {
+            throw new HttpMessageNotReadableException(ex.getMessage(), ex, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(final Object value, final ResolvableType type, final HttpOutputMessage outputMessage,
+                                 final Map<String, Object> hints) throws IOException, HttpMessageNotWritableException {
+        final byte[] encoded = value instanceof Store store ? ModelCodec.encodeStore(store)
+                                                            : ModelCodec.encodeProducts((Collection<Product>) value);
+        outputMessage.getHeaders().setContentLength(encoded.length);
+        outputMessage.getBody().write(encoded);
+    }
+
+    private static boolean isAcceptedExplicitly() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes requestAttributes)) {
+            return false;
+        }
+
+        try {
+            final List<String> accept = Collections.list(requestAttributes.getRequest()
+                                                                          .getHeaders(HttpHeaders.ACCEPT));
+            return MediaType.parseMediaTypes(accept)
+                            .stream()
+                            .anyMatch(MediaType.APPLICATION_OCTET_STREAM::equalsTypeAndSubtype);
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    private static boolean isStore(final ResolvableType type) {
+        return Store.class.isAssignableFrom(type.toClass());
+    }
+
+    // the element type is known from the declared return type, e.g. List<Product>
+    private static boolean isProductList(final ResolvableType type) {
+        final Class<?> elementType = type.asCollection().resolveGeneric(0);
+        return List.class.isAssignableFrom(type.toClass()) && elementType != null &&
+                Product.class.isAssignableFrom(elementType);
+    }
+}
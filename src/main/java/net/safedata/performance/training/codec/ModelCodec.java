@@ -0,0 +1,249 @@
+package net.safedata.performance.training.codec;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.model.Section;
+import net.safedata.performance.training.model.Store;
+import net.safedata.performance.training.model.StoreSection;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A compact binary encoding of the model graph - an alternative to the Java serialization of the model classes, which
+ * writes the class descriptors and the field names, and boxes the discounts and the optional values.
+ * <p>
+ * The encoding starts with a header (the 'PT' magic, the format version and the root type). Then:
+ * <ul>
+ *     <li>the product ids are written as zig-zag varints of the difference from the previous id, so consecutive ids
+ *     take a single byte</li>
+ *     <li>the whole cent prices are written as varints of cents, the other prices as raw doubles</li>
+ *     <li>the presence of the discount, its type and the price encoding are packed in a single flags byte</li>
+ *     <li>the {@link StoreSection}s are written as their ordinals</li>
+ *     <li>each distinct string is written once, front-coded against the previous one, and then referenced by index</li>
+ * </ul>
+ * The encoding is tied to the declaration order of the enums - reordering their constants requires a new format
+ * version.
+ */
+public final class ModelCodec {
+
+    private static final int MAGIC = ('P' << 8) | 'T';
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int PRODUCTS = 1;
+    private static final int STORE = 2;
+
+    // the flags of a product; a zero flags byte ends a list of products
+    private static final int PRESENT = 1;
+    private static final int DISCOUNTED = 1 << 1;
+    private static final int PERCENT_DISCOUNT = 1 << 2;
+    private static final int PRICE_IN_CENTS = 1 << 3;
+
+    private static final int END_OF_PRODUCTS = 0;
+
+    private static final StoreSection[] STORE_SECTIONS = StoreSection.values();
+
+    private ModelCodec() {
+    }
+
+    public static byte[] encodeProducts(final Collection<Product> products) {
+        final ProductsEncoder encoder = new ProductsEncoder(products.size());
+        products.forEach(encoder::add);
+        return encoder.finish();
+    }
+
+    public static List<Product> decodeProducts(final byte[] encoded) {
+        final BinaryReader reader = readHeader(encoded, PRODUCTS);
+        final List<Product> products = new ArrayList<>();
+        readProducts(reader, products);
+        readEnd(reader);
+        return products;
+    }
+
+    public static byte[] encodeStore(final Store store) {
+        final BinaryWriter writer = writeHeader(1024, STORE);
+        writer.writeZigZagInt(store.getId());
+        writer.writeString(store.getName());
+        writer.writeString(store.getLocation());
+
+        final Set<Section> sections = store.getStoreSections();
+        writer.writeVarInt(sections != null ? sections.size() + 1 : 0);
+        if (sections != null) {
+            for (Section section : sections) {
+                writeSection(writer, section);
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    public static Store decodeStore(final byte[] encoded) {
+        final BinaryReader reader = readHeader(encoded, STORE);
+        final int id = reader.readZigZagInt();
+        final String name = reader.readString();
+        final String location = reader.readString();
+
+        final int sectionsCount = reader.readVarInt() - 1;
+        Set<Section> sections = null;
+        if (sectionsCount >= 0) {
+            sections = new LinkedHashSet<>();
+            for (int index = 0; index < sectionsCount; index++) {
+                sections.add(readSection(reader));
+            }
+        }
+        readEnd(reader);
+        return new Store(id, name, location, sections);
+    }
+
+    /**
+     * Encodes the products one by one, e.g. while iterating over a store, without collecting them first
+     */
+    public static final class ProductsEncoder {
+        private final BinaryWriter writer;
+        private int previousId;
+        private boolean finished;
+
+        /**
+         * @param expectedProducts the expected number of products, used only to size the buffer
+         */
+        public ProductsEncoder(final int expectedProducts) {
+            this.writer = writeHeader(Math.min(expectedProducts, 1 << 24) * 8, PRODUCTS);
+        }
+
+        private ProductsEncoder(final BinaryWriter writer) {
+            this.writer = writer;
+        }
+
+        public void add(final Product product) {
+            if (finished) {
+                throw new IllegalStateException("The encoding is finished");
+            }
+            previousId = writeProduct(writer, product, previousId);
+        }
+
+        public byte[] finish() {
+            end();
+            return writer.toByteArray();
+        }
+
+        private void end() {
+            finished = true;
+            writer.writeByte(END_OF_PRODUCTS);
+        }
+    }
+
+    private static void writeSection(final BinaryWriter writer, final Section section) {
+        writer.writeZigZagInt(section.getId());
+        writer.writeVarInt(section.getName() != null ? section.getName().ordinal() + 1 : 0);
+
+        final List<Product> products = section.getProducts().orElse(null);
+        writer.writeByte(products != null ? PRESENT : 0);
+        if (products != null) {
+            final ProductsEncoder encoder = new ProductsEncoder(writer);
+            products.forEach(encoder::add);
+            encoder.end();
+        }
+    }
+
+    private static Section readSection(final BinaryReader reader) {
+        final int id = reader.readZigZagInt();
+        final int sectionCode = reader.readVarInt();
+        if (sectionCode < 0 || sectionCode > STORE_SECTIONS.length) {
+            throw new IllegalArgumentException("Unknown store section " + sectionCode);
+        }
+        final StoreSection name = sectionCode > 0 ? STORE_SECTIONS[sectionCode - 1] : null;
+
+        List<Product> products = null;
+        if (reader.readByte() == PRESENT) {
+            products = new ArrayList<>();
+            readProducts(reader, products);
+        }
+        return new Section(id, name, products);
+    }
+
+    // returns the id of the written product, the next id being written as a difference from it
+    private static int writeProduct(final BinaryWriter writer, final Product product, final int previousId) {
+        final Discount discount = product.getDiscount().orElse(null);
+        final double price = product.getPrice();
+        final long cents = Math.round(price * 100);
+        final boolean priceInCents = Double.compare(cents / 100.0, price) == 0 && Math.abs(cents) < (1L << 53);
+
+        int flags = PRESENT;
+        if (discount != null) {
+            flags |= DISCOUNTED;
+            if (discount.getDiscountType() == Discount.Type.Percent) {
+                flags |= PERCENT_DISCOUNT;
+            }
+        }
+        if (priceInCents) {
+            flags |= PRICE_IN_CENTS;
+        }
+
+        writer.writeByte(flags);
+        writer.writeZigZagInt(product.getId() - previousId);
+        writer.writeString(product.getName());
+        if (priceInCents) {
+            writer.writeZigZagLong(cents);
+        } else {
+            writer.writeDouble(price);
+        }
+        if (discount != null) {
+            writer.writeZigZagInt(discount.getValue());
+        }
+        return product.getId();
+    }
+
+    private static void readProducts(final BinaryReader reader, final List<Product> products) {
+        int previousId = 0;
+        int flags;
+        while ((flags = reader.readByte()) != END_OF_PRODUCTS) {
+            final int id = previousId + reader.readZigZagInt();
+            final String name = reader.readString();
+            final double price = (flags & PRICE_IN_CENTS) != 0 ? reader.readZigZagLong() / 100.0
+                                                               : reader.readDouble();
+            final Discount discount = (flags & DISCOUNTED) != 0
+                    ? new Discount(reader.readZigZagInt(), (flags & PERCENT_DISCOUNT) != 0 ? Discount.Type.Percent
+                                                                                           : Discount.Type.Value)
+                    : null;
+
+            products.add(new Product(id, name, price, discount));
+            previousId = id;
+        }
+    }
+
+    private static BinaryWriter writeHeader(final int expectedSize, final int rootType) {
+        final BinaryWriter writer = new BinaryWriter(expectedSize + 4);
+        writer.writeByte(MAGIC >>> 8);
+        writer.writeByte(MAGIC & 0xFF);
+        writer.writeByte(FORMAT_VERSION);
+        writer.writeByte(rootType);
+        return writer;
+    }
+
+    private static BinaryReader readHeader(final byte[] encoded, final int expectedRootType) {
+        final BinaryReader reader = new BinaryReader(encoded);
+        if (encoded.length < 4 || ((reader.readByte() << 8) | reader.readByte()) != MAGIC) {
+            throw new IllegalArgumentException("The data is not encoded by the " + ModelCodec.class.getSimpleName());
+        }
+
+        final int formatVersion = reader.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported format version " + formatVersion);
+        }
+
+        final int rootType = reader.readByte();
+        if (rootType != expectedRootType) {
+            throw new IllegalArgumentException("Unexpected root type " + rootType + ", instead of " +
+                    expectedRootType);
+        }
+        return reader;
+    }
+
+    private static void readEnd(final BinaryReader reader) {
+        if (reader.hasRemaining()) {
+            throw new IllegalArgumentException("Unexpected trailing data after the encoded model");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.safedata.performance.training.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the size below which a parallel task is no longer split, but processed sequentially.
+ * <p>
+ * A fixed threshold is either too small for cheap elements, when forking and joining the tasks costs more than
+ * processing them, or too large for expensive elements, when there are not enough tasks to keep the workers busy.
+ * Hence the cutoff is derived from the measured cost of processing an element, so that each leaf task does about
+ * {@code targetLeafNanos} of work, while still producing a few leaf tasks per worker, for the work stealing to
+ * balance them. Until the first leaf is measured, only the latter criterion is used.
+ */
+public final class AdaptiveCutoff {
+
+    private static final long DEFAULT_TARGET_LEAF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int DEFAULT_MIN_CUTOFF = 1024;
+
+    private static final int LEAVES_PER_WORKER = 4;
+
+    // the weight of a new measurement in the moving average of the cost per element
+    private static final double SMOOTHING = 0.25;
+
+    private final int parallelism;
+    private final long targetLeafNanos;
+    private final int minCutoff;
+
+    // the exponential moving average of the nanos per element - NaN until the first measurement
+    private volatile double nanosPerElement = Double.NaN;
+
+    public AdaptiveCutoff(final int parallelism) {
+        this(parallelism, DEFAULT_TARGET_LEAF_NANOS, DEFAULT_MIN_CUTOFF);
+    }
+
+    public AdaptiveCutoff(final int parallelism, final long targetLeafNanos, final int minCutoff) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive");
+        }
+        if (targetLeafNanos <= 0 || minCutoff < 1) {
+            throw new IllegalArgumentException("The target leaf duration and the minimum cutoff must be positive");
+        }
+
+        this.parallelism = parallelism;
+        this.targetLeafNanos = targetLeafNanos;
+        this.minCutoff = minCutoff;
+    }
+
+    /**
+     * @return the maximum number of elements of a leaf task, for processing the given number of elements
+     */
+    public long cutoff(final long size) {
+        final long balanced = size / ((long) parallelism * LEAVES_PER_WORKER);
+        final double cost = nanosPerElement;
+        final long amortized = Double.isNaN(cost) ? 0 : (long) Math.ceil(targetLeafNanos / Math.max(cost, 0.01));
+
+        return Math.max(minCutoff, Math.max(balanced, amortized));
+    }
+
+    /**
+     * @return whether the elements are worth being processed in parallel - i.e. they are more than a leaf
+     */
+    public boolean isWorthSplitting(final long size) {
+        return parallelism > 1 && size > cutoff(size);
+    }
+
+    /**
+     * Records the measured duration of a sequentially processed leaf
+     */
+    public void record(final long elements, final long nanos) {
+        if (elements <= 0) {
+            return;
+        }
+
+        // the concurrent leaves may overwrite each other's update, which only loses a measurement
+        final double measured = (double) nanos / elements;
+        final double current = nanosPerElement;
+        nanosPerElement = Double.isNaN(current) ? measured : current + SMOOTHING * (measured - current);
+    }
+
+    public double getNanosPerElement() {
+        return nanosPerElement;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
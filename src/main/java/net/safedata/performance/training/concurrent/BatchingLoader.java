@@ -0,0 +1,170 @@
+package net.safedata.performance.training.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Micro-batches the single-key loads: the keys requested within a short window - or until a batch is full - are
+ * loaded by a single bulk load, which completes the future of each caller. The concurrent requests of the same key
+ * share a single slot of the batch.
+ * <p>
+ * The bulk loads are executed one at a time, by the dispatcher thread - the keys requested during a bulk load wait
+ * for the next batch, so the batches grow with the load instead of the number of bulk loads.
+ */
+public class BatchingLoader<K, V> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingLoader.class);
+
+    private final String name;
+    private final Function<List<K>, Map<K, V>> bulkLoader;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+
+    private final BlockingQueue<Request<K, V>> requests = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+
+    private final LongAdder requested = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder fullBatches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+
+    /**
+     * @param bulkLoader loads the values of the given keys - the keys without a value are missing from the result
+     */
+    public BatchingLoader(final String name, final Function<List<K>, Map<K, V>> bulkLoader, final int maxBatchSize,
+                          final Duration maxWait) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size should be positive");
+        }
+        this.name = name;
+        this.bulkLoader = bulkLoader;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+
+        this.dispatcher = Thread.ofPlatform()
+                                .name(name + "-dispatcher")
+                                .daemon()
+                                .start(this::dispatch);
+    }
+
+    /**
+     * @return the future value of the key, completed with null if the key has no value
+     */
+    public CompletableFuture<V> load(final K key) {
+        final CompletableFuture<V> value = new CompletableFuture<>();
+        final Request<K, V> request = new Request<>(key, value);
+        requests.add(request);
+        // the dispatcher may have stopped before seeing the request
+        if (!dispatcher.isAlive() && requests.remove(request)) {
+            value.completeExceptionally(new IllegalStateException("The " + name + " loader is closed"));
+            return value;
+        }
+        requested.increment();
+        return value;
+    }
+
+    public long getRequested() {
+        return requested.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return the batches dispatched as they reached the maximum size, before the end of their window
+     */
+    public long getFullBatches() {
+        return fullBatches.sum();
+    }
+
+    public double getAverageBatchSize() {
+        final long batchCount = batches.sum();
+        return batchCount == 0 ? 0 : (double) batchedKeys.sum() / batchCount;
+    }
+
+    /**
+     * @return the average batch size, relative to the maximum one
+     */
+    public double getFillRatio() {
+        return getAverageBatchSize() / maxBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatch() {
+        // the waiting callers of each key, in their arrival order
+        final Map<K, List<CompletableFuture<V>>> batch = new HashMap<>();
+        try {
+            while (true) {
+                collect(requests.take(), batch);
+                final long windowEnd = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    final Request<K, V> request = requests.poll(windowEnd - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (request == null) {
+                        break;
+                    }
+                    collect(request, batch);
+                }
+                execute(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // closed - the collected and the queued requests are failed, so that no caller waits forever
+            final IllegalStateException closed = new IllegalStateException("The " + name + " loader is closed");
+            batch.values().forEach(callers -> callers.forEach(caller -> caller.completeExceptionally(closed)));
+            requests.forEach(request -> request.value().completeExceptionally(closed));
+        }
+    }
+
+    private void collect(final Request<K, V> request, final Map<K, List<CompletableFuture<V>>> batch) {
+        batch.computeIfAbsent(request.key(), key -> new ArrayList<>(1))
+             .add(request.value());
+    }
+
+    private void execute(final Map<K, List<CompletableFuture<V>>> batch) {
+        batches.increment();
+        batchedKeys.add(batch.size());
+        if (batch.size() == maxBatchSize) {
+            fullBatches.increment();
+        }
+
+        try {
+            final Map<K, V> values = bulkLoader.apply(new ArrayList<>(batch.keySet()));
+            batch.forEach((key, callers) -> {
+                final V value = values.get(key);
+                callers.forEach(caller -> caller.complete(value));
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("The {} bulk load of {} keys has failed", name, batch.size(), e);
+            batch.values().forEach(callers -> callers.forEach(caller -> caller.completeExceptionally(e)));
+        }
+    }
+
+    private record Request<K, V>(K key, CompletableFuture<V> value) {
+    }
+}
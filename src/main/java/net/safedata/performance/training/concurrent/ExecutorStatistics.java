@@ -0,0 +1,18 @@
+package net.safedata.performance.training.concurrent;
+
+import net.safedata.performance.training.aop.profiling.ExecutionTimeStatistics;
+
+/**
+ * The activity of an {@link InstrumentedExecutor}
+ *
+ * @param activeThreads  the threads currently executing a task
+ * @param queueDepth     the tasks waiting for a thread
+ * @param completedTasks the tasks executed since the startup, approximately
+ * @param rejectedTasks  the tasks rejected since the startup, as the queue was full
+ * @param waitTime       the time spent by the tasks in the queue
+ * @param executionTime  the execution time of the tasks
+ */
+public record ExecutorStatistics(String name, int poolSize, int activeThreads, int queueDepth, int queueCapacity,
+                                 long completedTasks, long rejectedTasks, ExecutionTimeStatistics waitTime,
+                                 ExecutionTimeStatistics executionTime) {
+}
@@ -0,0 +1,96 @@
+package net.safedata.performance.training.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structured fan-outs: each subtask is forked on its own virtual thread, and the call returns only after all of them
+ * have ended - the subtasks which are no longer needed are interrupted when the call returns or fails, so none of
+ * them outlives its caller. The call lasts as long as the slowest subtask it needs, not as the sum of all of them.
+ * <p>
+ * The timeout of the subtasks is measured from their fork - as each of them has its own thread, a subtask never
+ * waits for another one to start.
+ */
+public final class FanOut {
+
+    private FanOut() {
+    }
+
+    /**
+     * Shutdown on failure: returns the results of all the subtasks, in their fork order - the first failed or timed
+     * out subtask fails the call, interrupting the other ones
+     */
+    public static <T> List<T> all(final String name, final List<? extends Callable<T>> subtasks,
+                                  final Duration subtaskTimeout) {
+        final List<Future<T>> forked = new ArrayList<>(subtasks.size());
+        fork(name, subtasks, subtasks.size(), subtaskTimeout, forked);
+        return forked.stream()
+                     .map(Future::resultNow)
+                     .toList();
+    }
+
+    /**
+     * Returns the first {@code count} results, in their completion order, interrupting the remaining subtasks - the
+     * call fails only when so many subtasks have failed or timed out that {@code count} results can no longer be
+     * obtained
+     */
+    public static <T> List<T> first(final String name, final List<? extends Callable<T>> subtasks, final int count,
+                                    final Duration subtaskTimeout) {
+        if (count < 1 || count > subtasks.size()) {
+            throw new IllegalArgumentException("Cannot obtain " + count + " results from " + subtasks.size() +
+                    " subtasks");
+        }
+        return fork(name, subtasks, count, subtaskTimeout, new ArrayList<>(subtasks.size()));
+    }
+
+    private static <T> List<T> fork(final String name, final List<? extends Callable<T>> subtasks, final int required,
+                                    final Duration subtaskTimeout, final List<Future<T>> forked) {
+        final long deadline = System.nanoTime() + subtaskTimeout.toNanos();
+        final List<T> results = new ArrayList<>(required);
+        int failed = 0;
+
+        // closing the scope waits for all the subtasks, including the interrupted ones
+        try (ExecutorService scope = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                                                                              .name(name + "-", 0)
+                                                                              .factory())) {
+            final CompletionService<T> completionService = new ExecutorCompletionService<>(scope);
+            try {
+                for (final Callable<T> subtask : subtasks) {
+                    forked.add(completionService.submit(subtask));
+                }
+
+                while (results.size() < required) {
+                    final Future<T> completed = completionService.poll(deadline - System.nanoTime(),
+                            TimeUnit.NANOSECONDS);
+                    if (completed == null) {
+                        throw new FanOutException(name + ": " + results.size() + " of the " + required +
+                                " required subtasks completed in " + subtaskTimeout.toMillis() + " ms");
+                    }
+                    try {
+                        results.add(completed.get());
+                    } catch (ExecutionException e) {
+                        if (++failed > subtasks.size() - required) {
+                            throw new FanOutException(name + ": " + failed + " of the " + subtasks.size() +
+                                    " subtasks failed", e.getCause());
+                        }
+                    }
+                }
+                return results;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FanOutException(name + ": interrupted while waiting for the subtasks", e);
+            } finally {
+                forked.forEach(subtask -> subtask.cancel(true));
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package net.safedata.performance.training.concurrent;
+
+/**
+ * Thrown by a {@link FanOut} call which could not obtain the results it needed, before the timeout of its subtasks
+ */
+public class FanOutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public FanOutException(final String message) {
+        super(message);
+    }
+
+    public FanOutException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
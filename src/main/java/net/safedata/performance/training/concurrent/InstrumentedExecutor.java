@@ -0,0 +1,88 @@
+package net.safedata.performance.training.concurrent;
+
+import net.safedata.performance.training.aop.profiling.ExecutionTimeStatistics;
+import org.HdrHistogram.AtomicHistogram;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed size, named thread pool with a bounded queue, which records the time spent by its tasks in the queue and
+ * in execution, and counts the rejected tasks. A full queue rejects the new tasks, instead of queueing them without
+ * any bound or running them on the submitting thread.
+ */
+// final, as the constructor calls the overridable allowCoreThreadTimeOut
+public final class InstrumentedExecutor extends ThreadPoolExecutor {
+
+    private static final long LOWEST_DISCERNIBLE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final String name;
+    private final int queueCapacity;
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicHistogram waitTimes = newHistogram();
+    private final AtomicHistogram executionTimes = newHistogram();
+
+    public InstrumentedExecutor(final String name, final int threads, final int queueCapacity) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name(name + "-", 0).factory(), new AbortPolicy());
+        // the idle threads are stopped, so an executor used only from time to time doesn't keep its threads
+        allowCoreThreadTimeOut(true);
+
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final long submittedAt = System.nanoTime();
+        try {
+            super.execute(() -> {
+                final long start = System.nanoTime();
+                record(waitTimes, start - submittedAt);
+                try {
+                    command.run();
+                } finally {
+                    record(executionTimes, System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public ExecutorStatistics getStatistics() {
+        return new ExecutorStatistics(name, getPoolSize(), getActiveCount(), getQueue().size(), queueCapacity,
+                getCompletedTaskCount(), rejected.sum(), ExecutionTimeStatistics.of(waitTimes),
+                ExecutionTimeStatistics.of(executionTimes));
+    }
+
+    public void resetLatencies() {
+        waitTimes.reset();
+        executionTimes.reset();
+    }
+
+    private static void record(final AtomicHistogram histogram, final long nanos) {
+        histogram.recordValue(Math.min(Math.max(nanos, LOWEST_DISCERNIBLE_NANOS), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    private static AtomicHistogram newHistogram() {
+        return new AtomicHistogram(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+}
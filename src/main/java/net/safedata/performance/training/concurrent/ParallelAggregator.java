@@ -0,0 +1,71 @@
+package net.safedata.performance.training.concurrent;
+
+import net.safedata.performance.training.config.ExecutorsConfig;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.store.ProductStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+
+/**
+ * Runs the aggregations of the {@link ProductStore} products as parallel streams on a dedicated fork-join pool.
+ * <p>
+ * Each named aggregation has its own {@link AdaptiveCutoff}, as the cost per element depends on the aggregation;
+ * the small stores are aggregated sequentially, on the calling thread.
+ */
+@Component
+public class ParallelAggregator {
+
+    private final ForkJoinPool pool;
+    private final ConcurrentMap<String, AdaptiveCutoff> cutoffs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ParallelAggregator(@Qualifier(ExecutorsConfig.AGGREGATION_POOL) final ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public <R> R aggregate(final String name, final ProductStore store,
+                           final Function<Stream<Product>, R> aggregation) {
+        final Stream<Product> products = store.stream(cutoff(name));
+        return execute(products.isParallel(), () -> aggregation.apply(products));
+    }
+
+    public <R> R aggregatePrices(final String name, final ProductStore store,
+                                 final Function<DoubleStream, R> aggregation) {
+        final DoubleStream prices = store.prices(cutoff(name));
+        return execute(prices.isParallel(), () -> aggregation.apply(prices));
+    }
+
+    /**
+     * @return the measured cost per element of each aggregation, in nanoseconds
+     */
+    public Map<String, Double> getNanosPerElement() {
+        return cutoffs.entrySet()
+                      .stream()
+                      .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getNanosPerElement()));
+    }
+
+    private AdaptiveCutoff cutoff(final String name) {
+        return cutoffs.computeIfAbsent(name, key -> new AdaptiveCutoff(pool.getParallelism()));
+    }
+
+    // a parallel stream runs its tasks in the pool of the thread executing its terminal operation
+    private <R> R execute(final boolean parallel, final Supplier<R> aggregation) {
+        if (!parallel || ForkJoinTask.getPool() == pool) {
+            return aggregation.get();
+        }
+        return pool.submit(aggregation::get)
+                   .join();
+    }
+}
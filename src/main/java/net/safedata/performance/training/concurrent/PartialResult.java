@@ -0,0 +1,25 @@
+package net.safedata.performance.training.concurrent;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link ScatterGather} call: the results of the tasks completed before the deadline, in their
+ * completion order, and the number of tasks without a result, by cause
+ *
+ * @param failed    the tasks which threw an exception
+ * @param cancelled the tasks still running or queued at the deadline, which were cancelled
+ * @param rejected  the tasks rejected by the executor, which were never started
+ */
+public record PartialResult<T>(List<T> results, int failed, int cancelled, int rejected, long elapsedMillis) {
+
+    public PartialResult {
+        results = List.copyOf(results);
+    }
+
+    /**
+     * @return whether all the tasks have completed successfully
+     */
+    public boolean isComplete() {
+        return failed == 0 && cancelled == 0 && rejected == 0;
+    }
+}
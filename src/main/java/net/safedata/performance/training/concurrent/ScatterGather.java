@@ -0,0 +1,110 @@
+package net.safedata.performance.training.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a set of independent tasks in parallel and gathers their results until a deadline. The tasks which are
+ * not completed at the deadline are cancelled - interrupting them, if running - and the caller receives the results
+ * gathered so far, along with the number of tasks without a result.
+ */
+public class ScatterGather {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScatterGather.class);
+
+    private final ExecutorService executor;
+    private final int maxTasks;
+
+    /**
+     * @param maxTasks the most tasks of a call - usually the queue capacity of the executor, as the tasks above it
+     *                 would mostly be rejected
+     */
+    public ScatterGather(final ExecutorService executor, final int maxTasks) {
+        this.executor = executor;
+        this.maxTasks = maxTasks;
+    }
+
+    public int getMaxTasks() {
+        return maxTasks;
+    }
+
+    public <T> PartialResult<T> invokeAll(final List<? extends Callable<T>> tasks, final Duration deadline) {
+        if (tasks.size() > maxTasks) {
+            throw new IllegalArgumentException("At most " + maxTasks + " tasks can be scattered, not " + tasks.size());
+        }
+        final long start = System.nanoTime();
+        final long deadlineNanos = start + deadline.toNanos();
+
+        final ExecutorCompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        final List<Future<T>> pending = new ArrayList<>(tasks.size());
+        int rejected = 0;
+        for (final Callable<T> task : tasks) {
+            try {
+                pending.add(completionService.submit(task));
+            } catch (RejectedExecutionException e) {
+                rejected++;
+            }
+        }
+
+        final List<T> results = new ArrayList<>(pending.size());
+        int failed = 0;
+        try {
+            while (!pending.isEmpty()) {
+                final Future<T> completed = completionService.poll(deadlineNanos - System.nanoTime(),
+                        TimeUnit.NANOSECONDS);
+                if (completed == null) {
+                    break;
+                }
+                pending.remove(completed);
+                failed += gather(completed, results);
+            }
+        } catch (InterruptedException e) {
+            // the caller is interrupted - the remaining tasks are cancelled and the partial result is returned
+            Thread.currentThread().interrupt();
+        }
+
+        // a task may complete between the deadline and its cancellation - its result is kept
+        int cancelled = 0;
+        for (final Future<T> straggler : pending) {
+            if (straggler.cancel(true)) {
+                cancelled++;
+            } else {
+                failed += gather(straggler, results);
+            }
+        }
+
+        final PartialResult<T> partialResult = new PartialResult<>(results, failed, cancelled, rejected,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (!partialResult.isComplete()) {
+            LOGGER.debug("Partial result of {} tasks: {} results, {} failed, {} cancelled, {} rejected", tasks.size(),
+                    results.size(), failed, cancelled, rejected);
+        }
+        return partialResult;
+    }
+
+    // returns 1 if the task failed, 0 otherwise
+    private static <T> int gather(final Future<T> completed, final List<T> results) {
+        try {
+            results.add(completed.get());
+            return 0;
+        } catch (ExecutionException | CancellationException e) {
+            LOGGER.debug("A scattered task failed", e);
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+}
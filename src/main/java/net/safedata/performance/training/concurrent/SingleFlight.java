@@ -0,0 +1,60 @@
+package net.safedata.performance.training.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates the concurrent computations of the same key: the first caller of a key executes the computation,
+ * while the callers arriving during its execution wait for and share its result. The computations of different keys
+ * run fully in parallel, as there is no lock shared between the keys.
+ * <p>
+ * The results are not cached - a call arriving after the computation has completed starts a new one.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(final K key, final Supplier<V> computation) {
+        final CompletableFuture<V> call = new CompletableFuture<>();
+        final CompletableFuture<V> runningCall = inFlight.putIfAbsent(key, call);
+        if (runningCall != null) {
+            return join(runningCall);
+        }
+
+        // the call is removed before being completed, so that the callers arriving later start a new computation
+        final V value;
+        try {
+            value = computation.get();
+        } catch (final RuntimeException | Error exception) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(exception);
+            throw exception;
+        }
+
+        inFlight.remove(key, call);
+        call.complete(value);
+        return value;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(final CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (final CompletionException exception) {
+            // rethrows the exception of the computation, as its own caller got it
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (exception.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw exception;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package net.safedata.performance.training.config;
 
 import net.safedata.performance.training.aop.aspect.LoggingAspect;
+import net.safedata.performance.training.aop.profiling.AllocationProfiles;
+import net.safedata.performance.training.aop.profiling.ExecutionTimeHistograms;
 import net.safedata.performance.training.aop.aspect.ProfilingAspect;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,8 +17,18 @@ public class AspectJConfig {
         return new LoggingAspect();
     }
 
+    @Bean
+    public ExecutionTimeHistograms executionTimeHistograms() {
+        return new ExecutionTimeHistograms();
+    }
+
+    @Bean
+    public AllocationProfiles allocationProfiles() {
+        return new AllocationProfiles();
+    }
+
     @Bean
     public ProfilingAspect profiler() {
-        return new ProfilingAspect();
+        return new ProfilingAspect(executionTimeHistograms(), allocationProfiles());
     }
 }
@@ -0,0 +1,74 @@
+package net.safedata.performance.training.config;
+
+import net.safedata.performance.training.aop.profiling.AllocationTracking;
+import net.safedata.performance.training.concurrent.InstrumentedExecutor;
+import net.safedata.performance.training.concurrent.ScatterGather;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The executor of the {@link java.util.concurrent.CompletableFuture} stages from the controllers - the common
+ * ForkJoin pool by default, respectively a new virtual thread per stage in the virtual threads mode
+ * ('spring.threads.virtual.enabled', which also moves the Tomcat request processing on virtual threads).
+ * <p>
+ * The allocations of the stages are attributed to the @MemoryProfiling invocation which submitted them.
+ * <p>
+ * The parallel aggregations run on their own fork-join pool, so that they cannot starve the common pool stages, and
+ * the scatter-gather computations run on their own instrumented executor.
+ */
+@Configuration
+public class ExecutorsConfig {
+
+    public static final String ASYNC_STAGES_EXECUTOR = "asyncStagesExecutor";
+    public static final String AGGREGATION_POOL = "aggregationPool";
+    public static final String STOCKS_EXECUTOR = "stocksExecutor";
+
+    // closing the common pool has no effect
+    @Bean(name = ASYNC_STAGES_EXECUTOR, destroyMethod = "close")
+    @ConditionalOnBooleanProperty(name = "spring.threads.virtual.enabled", havingValue = false, matchIfMissing = true)
+    public Executor commonPoolExecutor() {
+        return AllocationTracking.propagating(ForkJoinPool.commonPool());
+    }
+
+    @Bean(name = ASYNC_STAGES_EXECUTOR, destroyMethod = "close")
+    @ConditionalOnBooleanProperty(name = "spring.threads.virtual.enabled")
+    public Executor virtualThreadsExecutor() {
+        final ThreadFactory virtualThreadFactory = Thread.ofVirtual()
+                                                         .name("async-stage-virtual-thread-", 0)
+                                                         .factory();
+        return AllocationTracking.propagating(Executors.newThreadPerTaskExecutor(virtualThreadFactory));
+    }
+
+    @Bean(name = AGGREGATION_POOL, destroyMethod = "close")
+    public ForkJoinPool aggregationPool(@Value("${products.aggregation.parallelism:0}") final int parallelism) {
+        final ForkJoinPool.ForkJoinWorkerThreadFactory workerThreadFactory = pool -> {
+            final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("aggregation-worker-" + worker.getPoolIndex());
+            return worker;
+        };
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                workerThreadFactory, null, false);
+    }
+
+    // the stock computations mostly wait for I/O, so the pool is not sized by the number of processors
+    @Bean(name = STOCKS_EXECUTOR, destroyMethod = "shutdownNow")
+    public InstrumentedExecutor stocksExecutor(@Value("${products.stocks.threads:8}") final int threads,
+                                               @Value("${products.stocks.queue-capacity:1000}")
+                                               final int queueCapacity) {
+        return new InstrumentedExecutor("stocks-worker", threads, queueCapacity);
+    }
+
+    @Bean
+    public ScatterGather stocksScatterGather(@Qualifier(STOCKS_EXECUTOR) final InstrumentedExecutor stocksExecutor) {
+        return new ScatterGather(stocksExecutor, stocksExecutor.getQueueCapacity());
+    }
+}
@@ -0,0 +1,29 @@
+package net.safedata.performance.training.config;
+
+import net.safedata.performance.training.store.ProductRetention;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class ProductStoreConfig {
+
+    @Value("${products.retention.policy:unbounded}")
+    private ProductRetention.Policy policy;
+
+    @Value("${products.retention.max-count:1000000}")
+    private int maxCount;
+
+    @Value("${products.retention.max-age:5m}")
+    private Duration maxAge;
+
+    @Value("${products.retention.window-batches:20}")
+    private int windowBatches;
+
+    @Bean
+    public ProductRetention productRetention() {
+        return new ProductRetention(policy, maxCount, maxAge, windowBatches);
+    }
+}
@@ -1,9 +1,11 @@
 package net.safedata.performance.training.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.ThreadPoolExecutor;
@@ -16,10 +18,11 @@ public class SchedulingConfig {
 
     @Primary
     @Bean
+    @ConditionalOnBooleanProperty(name = "spring.threads.virtual.enabled", havingValue = false, matchIfMissing = true)
     public ThreadPoolTaskScheduler threadPoolTaskScheduler() {
         final ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
 
-        threadPoolTaskScheduler.setPoolSize(PROCESSORS_COUNT / 2);
+        threadPoolTaskScheduler.setPoolSize(Math.max(PROCESSORS_COUNT / 2, 1));
         threadPoolTaskScheduler.setThreadGroupName("scheduled-thread-pool-");
         threadPoolTaskScheduler.setThreadNamePrefix("scheduled-thread-");
         threadPoolTaskScheduler.setWaitForTasksToCompleteOnShutdown(true);
@@ -30,4 +33,18 @@ public class SchedulingConfig {
 
         return threadPoolTaskScheduler;
     }
+
+    // each scheduled execution runs on its own virtual thread, the triggering is done by a single scheduler thread
+    @Primary
+    @Bean
+    @ConditionalOnBooleanProperty(name = "spring.threads.virtual.enabled")
+    public SimpleAsyncTaskScheduler virtualThreadTaskScheduler() {
+        final SimpleAsyncTaskScheduler virtualThreadTaskScheduler = new SimpleAsyncTaskScheduler();
+
+        virtualThreadTaskScheduler.setVirtualThreads(true);
+        virtualThreadTaskScheduler.setThreadNamePrefix("scheduled-virtual-thread-");
+        virtualThreadTaskScheduler.setTaskTerminationTimeout(10_000);
+
+        return virtualThreadTaskScheduler;
+    }
 }
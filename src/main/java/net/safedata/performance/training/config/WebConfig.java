@@ -0,0 +1,15 @@
+package net.safedata.performance.training.config;
+
+import net.safedata.performance.training.codec.ModelBinaryHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureMessageConverters(final HttpMessageConverters.ServerBuilder builder) {
+        builder.addCustomConverter(new ModelBinaryHttpMessageConverter());
+    }
+}
@@ -0,0 +1,99 @@
+package net.safedata.performance.training.controller;
+
+import net.safedata.performance.training.catalog.CatalogQuery;
+import net.safedata.performance.training.catalog.DemoStores;
+import net.safedata.performance.training.catalog.ProductCatalog;
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.model.StoreSection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/catalog")
+public class CatalogController {
+
+    private final ProductCatalog productCatalog;
+    private final long maxGeneratedProducts;
+
+    @Autowired
+    public CatalogController(final ProductCatalog productCatalog,
+                             @Value("${products.catalog.max-generated-products:1000000}")
+                             final long maxGeneratedProducts) {
+        this.productCatalog = productCatalog;
+        this.maxGeneratedProducts = maxGeneratedProducts;
+    }
+
+    @GetMapping("/product")
+    public List<Product> find(@RequestParam(required = false) final StoreSection[] section,
+                              @RequestParam(required = false) final Integer store,
+                              @RequestParam(required = false) final Double minPrice,
+                              @RequestParam(required = false) final Double maxPrice,
+                              @RequestParam(defaultValue = "false") final boolean discounted,
+                              @RequestParam(required = false) final Discount.Type discountType,
+                              @RequestParam(defaultValue = "CHEAPEST_FIRST") final CatalogQuery.Order order,
+                              @RequestParam(defaultValue = "100") final int limit) {
+        final CatalogQuery query;
+        try {
+            final CatalogQuery.Builder builder = CatalogQuery.builder()
+                                                             .priceBetween(minPrice != null ? minPrice : 0,
+                                                                           maxPrice != null ? maxPrice
+                                                                                            : Double.MAX_VALUE)
+                                                             .withDiscountType(discountType);
+            if (section != null) {
+                builder.inSections(section);
+            }
+            if (store != null) {
+                builder.inStore(store);
+            }
+            if (discounted) {
+                builder.discountedOnly();
+            }
+            if (order == CatalogQuery.Order.CHEAPEST_FIRST) {
+                builder.cheapestFirst(limit);
+            } else {
+                builder.mostExpensiveFirst(limit);
+            }
+            query = builder.build();
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        return productCatalog.find(query);
+    }
+
+    @GetMapping("/size")
+    public int size() {
+        return productCatalog.size();
+    }
+
+    @PostMapping("/store")
+    public int generateStores(@RequestParam(defaultValue = "1") final int firstId,
+                              @RequestParam(defaultValue = "10") final int count,
+                              @RequestParam(defaultValue = "10000") final int productsPerSection) {
+        // a single request should not be able to build a catalog exhausting the heap
+        final long generatedProducts = (long) count * productsPerSection * StoreSection.values().length;
+        if (count < 1 || productsPerSection < 1 || generatedProducts > maxGeneratedProducts) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The stores and their products per section " +
+                    "should be positive, with at most " + maxGeneratedProducts + " products per request");
+        }
+        productCatalog.putStores(DemoStores.generate(firstId, count, productsPerSection));
+        return productCatalog.size();
+    }
+
+    @DeleteMapping("/store/{id}")
+    public int removeStore(@PathVariable final int id) {
+        productCatalog.removeStore(id);
+        return productCatalog.size();
+    }
+}
@@ -0,0 +1,43 @@
+package net.safedata.performance.training.controller;
+
+import net.safedata.performance.training.pipeline.StageStatistics;
+import net.safedata.performance.training.service.ProductsProcessingPipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/processing")
+@ConditionalOnBooleanProperty(name = "products.processing.enabled", matchIfMissing = true)
+public class ProcessingController {
+
+    private final ProductsProcessingPipeline processingPipeline;
+
+    @Autowired
+    public ProcessingController(final ProductsProcessingPipeline processingPipeline) {
+        this.processingPipeline = processingPipeline;
+    }
+
+    @GetMapping("/stages")
+    public List<StageStatistics> stages() {
+        return processingPipeline.getStatistics();
+    }
+
+    // a load spike: the cycles which do not fit in the first queue are skipped
+    @PostMapping("/cycles")
+    public int submitCycles(@RequestParam(defaultValue = "10") final int count) {
+        return processingPipeline.submit(count);
+    }
+
+    @DeleteMapping("/latencies")
+    public void resetLatencies() {
+        processingPipeline.resetLatencies();
+    }
+}
@@ -1,30 +1,72 @@
 package net.safedata.performance.training.controller;
 
+import net.safedata.performance.training.cache.ResponseBodyCache;
+import net.safedata.performance.training.concurrent.PartialResult;
+import net.safedata.performance.training.config.ExecutorsConfig;
 import net.safedata.performance.training.domain.model.ProductEntity;
+import net.safedata.performance.training.model.Discount;
 import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.sales.SalesSummary;
+import net.safedata.performance.training.service.DepositStock;
+import net.safedata.performance.training.service.ProductExportService;
+import net.safedata.performance.training.service.ProductIngestService;
+import net.safedata.performance.training.service.ProductPageService;
 import net.safedata.performance.training.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.util.DoubleSummaryStatistics;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/product")
 public class ProductController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductPageService productPageService;
+    private final ProductIngestService productIngestService;
+    private final ResponseBodyCache responseBodyCache;
+    private final Executor asyncStagesExecutor;
 
     @Autowired
-    public ProductController(final ProductService productService) {
+    public ProductController(final ProductService productService,
+                             final ProductExportService productExportService,
+                             final ProductPageService productPageService,
+                             final ProductIngestService productIngestService,
+                             final ResponseBodyCache responseBodyCache,
+                             @Qualifier(ExecutorsConfig.ASYNC_STAGES_EXECUTOR) final Executor asyncStagesExecutor) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.productPageService = productPageService;
+        this.productIngestService = productIngestService;
+        this.responseBodyCache = responseBodyCache;
+        this.asyncStagesExecutor = asyncStagesExecutor;
     }
 
     @GetMapping("/long/{productType}")
@@ -33,8 +75,82 @@ public class ProductController {
     }
 
     @GetMapping
-    public List<ProductEntity> allProducts() {
-        return productService.getAllDatabaseProducts();
+    public ResponseEntity<byte[]> allProducts(@RequestParam(defaultValue = "false") final boolean pretty,
+                                              final WebRequest webRequest) {
+        return encodedResponse(webRequest, "/product", "", pretty, productService.getAllDatabaseProductsTtl(),
+                productService::getAllDatabaseProducts);
+    }
+
+    @GetMapping("/{id:\\d+}")
+    public ResponseEntity<byte[]> product(@PathVariable final long id,
+                                          @RequestParam(defaultValue = "false") final boolean pretty,
+                                          final WebRequest webRequest) {
+        final Optional<ProductEntity> product = productService.getDatabaseProduct(id);
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return encodedResponse(webRequest, "/product/{id}", String.valueOf(id), pretty,
+                productService.getDatabaseProductTtl(), product::get);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<byte[]> productsPage(@RequestParam(required = false) final String cursor,
+                                               @RequestParam(defaultValue = "100") final int size,
+                                               @RequestParam(required = false) final Double minPrice,
+                                               @RequestParam(required = false) final Double maxPrice,
+                                               @RequestParam(defaultValue = "false") final boolean pretty,
+                                               final WebRequest webRequest) {
+        final String parameters = cursor + "|" + size + "|" + minPrice + "|" + maxPrice;
+        try {
+            // the pages are read from the database directly, so they have their own, shorter TTL
+            return encodedResponse(webRequest, "/product/page", parameters, pretty, responseBodyCache.getPageTtl(),
+                    () -> productPageService.getProductsPage(cursor, size, minPrice, maxPrice));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    @PostMapping("/ingest")
+    public String ingestProducts(@RequestParam(defaultValue = "100000") final int count,
+                                 @RequestParam(defaultValue = "JDBC_BATCH") final ProductIngestService.Mode mode) {
+        try {
+            final int ingested = productIngestService.ingestGeneratedProducts(count, mode);
+            return "Ingested " + ingested + " products using " + mode;
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts(
+            @RequestParam(defaultValue = "NDJSON") final ProductExportService.Format format,
+            final WebRequest webRequest) {
+        // only this response gets the longer timeout - the async request is prepared before the handler is invoked
+        WebAsyncUtils.getAsyncManager(webRequest)
+                     .getAsyncWebRequest()
+                     .setTimeout(productExportService.getTimeout().toMillis());
+
+        final StreamingResponseBody responseBody =
+                outputStream -> productExportService.exportDatabaseProducts(outputStream, format);
+
+        return ResponseEntity.ok()
+                             .contentType(format == ProductExportService.Format.NDJSON ? NDJSON
+                                                                                       : MediaType.APPLICATION_JSON)
+                             .body(responseBody);
+    }
+
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] productsSnapshot() {
+        return productService.getProductsSnapshot();
+    }
+
+    @PutMapping(value = "/snapshot", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public String restoreProductsSnapshot(@RequestBody final byte[] snapshot) {
+        try {
+            return "Restored " + productService.restoreProductsSnapshot(snapshot) + " products";
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
     }
 
     @GetMapping("/long/sync/{productType}")
@@ -65,15 +181,58 @@ public class ProductController {
                                                                .body(productService.getTotalSales()));
     }
 
+    @GetMapping("/sales")
+    public SalesSummary salesSummary() {
+        return productService.getSalesSummary();
+    }
+
+    @GetMapping("/stocks")
+    public PartialResult<DepositStock> depositStocks(@RequestParam(defaultValue = "20") final int deposits,
+                                                     @RequestParam(defaultValue = "300") final long deadlineMillis) {
+        try {
+            return productService.getDepositStocks(deposits, Duration.ofMillis(deadlineMillis));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    @GetMapping("/price-statistics")
+    public DoubleSummaryStatistics priceStatistics() {
+        return productService.getPriceStatistics();
+    }
+
+    @GetMapping("/discount-types")
+    public Map<Discount.Type, Long> discountTypeCounts() {
+        return productService.getDiscountTypeCounts();
+    }
+
     private void setTotalSalesSync(DeferredResult<ResponseEntity<?>> deferredResult) {
         final double totalSales = productService.getTotalSales();
         deferredResult.setResult(ResponseEntity.ok().body("The total sales value is " + totalSales));
     }
 
     private void setTotalSalesAsync(DeferredResult<ResponseEntity<?>> deferredResult) {
-        CompletableFuture.supplyAsync(productService::getTotalSales)
+        CompletableFuture.supplyAsync(productService::getTotalSales, asyncStagesExecutor)
                          .thenAcceptAsync(value -> deferredResult.setResult(ResponseEntity.ok()
-                                                                                          .body("The total sales value is " + value)));
+                                                                                          .body("The total sales value is " + value)),
+                                          asyncStagesExecutor);
+    }
+
+    // the cached JSON bytes are written as they are, or not at all if the client already has them (304)
+    private ResponseEntity<byte[]> encodedResponse(final WebRequest webRequest, final String endpoint,
+                                                   final String parameters, final boolean pretty,
+                                                   final Duration dataTtl, final Supplier<?> body) {
+        final ResponseBodyCache.ResponseKey key = new ResponseBodyCache.ResponseKey(endpoint, parameters,
+                productService.getDatabaseProductsVersion(), pretty);
+        final ResponseBodyCache.EncodedResponse response = responseBodyCache.get(key, dataTtl, body);
+        if (webRequest.checkNotModified(response.eTag())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                             .contentType(MediaType.APPLICATION_JSON)
+                             .eTag(response.eTag())
+                             .body(response.body());
     }
 
     @GetMapping("/pool-size")
@@ -1,10 +1,13 @@
 package net.safedata.performance.training.controller;
 
+import net.safedata.performance.training.config.ExecutorsConfig;
 import net.safedata.performance.training.aop.profiling.ExecutionTimeProfiling;
 import net.safedata.performance.training.aop.profiling.MemoryProfiling;
 import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.sales.SalesSummary;
 import net.safedata.performance.training.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,6 +18,7 @@ import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
 
 @RestController
@@ -22,10 +26,13 @@ import java.util.concurrent.ForkJoinPool;
 public class ProfiledProductController {
 
     private final ProductService productService;
+    private final Executor asyncStagesExecutor;
 
     @Autowired
-    public ProfiledProductController(final ProductService productService) {
+    public ProfiledProductController(final ProductService productService,
+                                     @Qualifier(ExecutorsConfig.ASYNC_STAGES_EXECUTOR) final Executor asyncStagesExecutor) {
         this.productService = productService;
+        this.asyncStagesExecutor = asyncStagesExecutor;
     }
 
     @ExecutionTimeProfiling
@@ -41,6 +48,7 @@ public class ProfiledProductController {
         return productService.getSynchronizedProducts(productType);
     }
 
+    @MemoryProfiling
     @GetMapping("/deferred-result")
     public DeferredResult<ResponseEntity<?>> deferredResultProcessing() {
         DeferredResult<ResponseEntity<?>> deferredResult = new DeferredResult<>();
@@ -57,21 +65,28 @@ public class ProfiledProductController {
         return deferredResult;
     }
 
+    @MemoryProfiling
     @GetMapping("/cf")
     public CompletableFuture<ResponseEntity<?>> completableFeature() {
         return CompletableFuture.completedFuture(ResponseEntity.ok()
                                                                .body(productService.getTotalSales()));
     }
 
+    @GetMapping("/sales")
+    public SalesSummary salesSummary() {
+        return productService.getSalesSummary();
+    }
+
     private void setTotalSalesSync(DeferredResult<ResponseEntity<?>> deferredResult) {
         final double totalSales = productService.getTotalSales();
         deferredResult.setResult(ResponseEntity.ok().body("The total sales value is " + totalSales));
     }
 
     private void setTotalSalesAsync(DeferredResult<ResponseEntity<?>> deferredResult) {
-        CompletableFuture.supplyAsync(productService::getTotalSales)
+        CompletableFuture.supplyAsync(productService::getTotalSales, asyncStagesExecutor)
                          .thenAcceptAsync(value -> deferredResult.setResult(ResponseEntity.ok()
-                                                                                          .body("The total sales value is " + value)));
+                                                                                          .body("The total sales value is " + value)),
+                                          asyncStagesExecutor);
     }
 
     @GetMapping("/pool-size")
@@ -0,0 +1,74 @@
+package net.safedata.performance.training.controller;
+
+import net.safedata.performance.training.aop.profiling.AllocationProfiles;
+import net.safedata.performance.training.aop.profiling.AllocationStatistics;
+import net.safedata.performance.training.aop.profiling.ExecutionTimeHistograms;
+import net.safedata.performance.training.aop.profiling.ExecutionTimeStatistics;
+import net.safedata.performance.training.jfr.FlightRecordings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/profiling")
+public class ProfilingController {
+
+    private final ExecutionTimeHistograms executionTimeHistograms;
+    private final AllocationProfiles allocationProfiles;
+    private final FlightRecordings flightRecordings;
+
+    @Autowired
+    public ProfilingController(final ExecutionTimeHistograms executionTimeHistograms,
+                               final AllocationProfiles allocationProfiles,
+                               final FlightRecordings flightRecordings) {
+        this.executionTimeHistograms = executionTimeHistograms;
+        this.allocationProfiles = allocationProfiles;
+        this.flightRecordings = flightRecordings;
+    }
+
+    @GetMapping("/execution-times")
+    public Map<String, ExecutionTimeStatistics> executionTimes() {
+        return executionTimeHistograms.getStatistics();
+    }
+
+    @DeleteMapping("/execution-times")
+    public void resetExecutionTimes() {
+        executionTimeHistograms.reset();
+    }
+
+    @GetMapping("/allocations")
+    public Map<String, AllocationStatistics> allocations() {
+        return allocationProfiles.getStatistics();
+    }
+
+    @DeleteMapping("/allocations")
+    public void resetAllocations() {
+        allocationProfiles.reset();
+    }
+
+    @PostMapping("/recording")
+    public long startRecording() {
+        return flightRecordings.start();
+    }
+
+    @PostMapping("/recording/dump")
+    public String dumpRecording() {
+        try {
+            return flightRecordings.dump().toString();
+        } catch (IllegalStateException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex);
+        }
+    }
+
+    @DeleteMapping("/recording")
+    public void stopRecording() {
+        flightRecordings.stop();
+    }
+}
@@ -0,0 +1,59 @@
+package net.safedata.performance.training.controller;
+
+import net.safedata.performance.training.domain.model.ProductEntity;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.sales.SalesSummary;
+import net.safedata.performance.training.service.ReactiveProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * The non-blocking variant of the products API - the responses are written as their items are emitted, so a
+ * waiting or slow client doesn't hold a request thread.
+ */
+@RestController
+@RequestMapping("/reactive/product")
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    @Autowired
+    public ReactiveProductController(final ReactiveProductService reactiveProductService) {
+        this.reactiveProductService = reactiveProductService;
+    }
+
+    // streamed as newline delimited JSON, a page of products per line - each line is written and flushed on its own,
+    // so a line per product would be several times slower. Spring MVC streams a Flux without an async request timeout,
+    // so the listing is bounded by the service, using the export timeout
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<List<ProductEntity>> allProducts() {
+        return reactiveProductService.getDatabaseProducts();
+    }
+
+    // the event streams are not bounded - they end when the products are generated, respectively the client leaves
+    @GetMapping(value = "/generate", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Product>> generateProducts() {
+        return reactiveProductService.generateProducts()
+                                     .map(product -> ServerSentEvent.builder(product)
+                                                                    .event("product")
+                                                                    .build());
+    }
+
+    @GetMapping("/sales")
+    public Mono<SalesSummary> salesSummary() {
+        return reactiveProductService.getSalesSummary();
+    }
+
+    @GetMapping(value = "/sales/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<SalesSummary> salesUpdates() {
+        return reactiveProductService.getSalesUpdates();
+    }
+}
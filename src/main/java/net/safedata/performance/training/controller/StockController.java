@@ -0,0 +1,50 @@
+package net.safedata.performance.training.controller;
+
+import net.safedata.performance.training.concurrent.FanOutException;
+import net.safedata.performance.training.service.StoreStock;
+import net.safedata.performance.training.service.StoreStockService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/stock")
+public class StockController {
+
+    private final StoreStockService storeStockService;
+
+    @Autowired
+    public StockController(final StoreStockService storeStockService) {
+        this.storeStockService = storeStockService;
+    }
+
+    @GetMapping("/all")
+    public List<StoreStock> allStores(@RequestParam final String product,
+                                      @RequestParam(defaultValue = "1500") final long timeoutMillis) {
+        try {
+            return storeStockService.getStocks(product, Duration.ofMillis(timeoutMillis));
+        } catch (FanOutException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex);
+        }
+    }
+
+    @GetMapping("/first")
+    public List<StoreStock> firstStores(@RequestParam final String product,
+                                        @RequestParam(defaultValue = "10") final int count,
+                                        @RequestParam(defaultValue = "500") final long timeoutMillis) {
+        try {
+            return storeStockService.getFirstStocks(product, count, Duration.ofMillis(timeoutMillis));
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch (FanOutException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package net.safedata.performance.training.domain.ingest;
+
+import net.safedata.performance.training.domain.model.ProductEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The plain JDBC bulk-insert paths, bypassing JPA: batched prepared statement inserts, respectively (for H2) a
+ * single {@code INSERT ... SELECT FROM CSVREAD(...)} statement over a temporary CSV file.
+ * <p>
+ * The entities without an id (0) get one from the {@link PooledIdAllocator}.
+ */
+public class ProductBatchInserter {
+
+    private static final String INSERT_PRODUCT = "INSERT INTO product (id, name, price) VALUES (?, ?, ?)";
+    // H2 needs the file name of CSVREAD as a literal, it cannot be a statement parameter
+    private static final String INSERT_PRODUCTS_FROM_CSV =
+            "INSERT INTO product (id, name, price) SELECT * FROM CSVREAD('%s', 'ID,NAME,PRICE', 'charset=UTF-8')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PooledIdAllocator idAllocator;
+    private final int batchSize;
+
+    public ProductBatchInserter(final JdbcTemplate jdbcTemplate, final PooledIdAllocator idAllocator,
+                                final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.batchSize = batchSize;
+    }
+
+    public int insertBatched(final List<ProductEntity> products) {
+        assignIds(products);
+
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, products, batchSize,
+                (statement, product) -> {
+                    statement.setLong(1, product.getId());
+                    statement.setString(2, product.getName());
+                    statement.setDouble(3, product.getPrice());
+                });
+        return products.size();
+    }
+
+    /**
+     * @param products written to the CSV file one by one, so they can be generated as they are iterated
+     */
+    public int insertFromCsv(final Iterable<ProductEntity> products) {
+        Path csvFile = null;
+        try {
+            csvFile = Files.createTempFile("products-", ".csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+                for (final ProductEntity product : products) {
+                    assignId(product);
+                    writer.append(Long.toString(product.getId()))
+                          .append(',')
+                          .append(quote(product.getName()))
+                          .append(',')
+                          .append(Double.toString(product.getPrice()))
+                          .append('\n');
+                }
+            }
+
+            final String fileName = csvFile.toAbsolutePath().toString().replace("'", "''");
+            return jdbcTemplate.update(INSERT_PRODUCTS_FROM_CSV.formatted(fileName));
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            deleteQuietly(csvFile);
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private void assignIds(final List<ProductEntity> products) {
+        for (final ProductEntity product : products) {
+            assignId(product);
+        }
+    }
+
+    private void assignId(final ProductEntity product) {
+        if (product.getId() == 0) {
+            product.setId(idAllocator.nextId());
+        }
+    }
+
+    private static String quote(final String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void deleteQuietly(final Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException ignored) {
+            // a temporary file, cleaned by the OS anyway
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package net.safedata.performance.training.domain.model;
+
+import tools.jackson.databind.annotation.JsonSerialize;
+
+import java.util.List;
+
+public class ProductPage {
+
+    private final List<ProductSummary> products;
+    private final String nextCursor;
+
+    public ProductPage(final List<ProductSummary> products, final String nextCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+
+    // serialized as projections, without the properties of the projection proxies
+    @JsonSerialize(contentAs = ProductSummary.class)
+    public List<ProductSummary> getProducts() {
+        return products;
+    }
+
+    /**
+     * @return the cursor of the next page, respectively null for the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
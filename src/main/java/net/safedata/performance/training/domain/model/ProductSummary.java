@@ -0,0 +1,14 @@
+package net.safedata.performance.training.domain.model;
+
+/**
+ * A read-only projection of {@link ProductEntity} - only the projected columns are selected and no managed entities
+ * are created for it
+ */
+public interface ProductSummary {
+
+    long getId();
+
+    String getName();
+
+    double getPrice();
+}
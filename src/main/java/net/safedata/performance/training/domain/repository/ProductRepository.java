@@ -1,9 +1,19 @@
 package net.safedata.performance.training.domain.repository;
 
 import net.safedata.performance.training.domain.model.ProductEntity;
+import net.safedata.performance.training.domain.model.ProductSummary;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
+
+    // keyset (seek) pagination - the page starts after the last seen id, so a deep page costs as much as the first one
+    List<ProductSummary> findByIdGreaterThanOrderByIdAsc(long lastSeenId, Limit limit);
+
+    List<ProductSummary> findByIdGreaterThanAndPriceBetweenOrderByIdAsc(long lastSeenId, double minPrice,
+                                                                       double maxPrice, Limit limit);
 }
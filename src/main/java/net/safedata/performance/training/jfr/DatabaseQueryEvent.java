@@ -0,0 +1,24 @@
+package net.safedata.performance.training.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A JDBC query of the products - the stack trace is kept, to show the caller of a slow query
+ */
+@Name("net.safedata.performance.training.DatabaseQuery")
+@Label("Database Query")
+@Category({"Performance Training", "Database"})
+@Description("A JDBC query of the products")
+@Threshold("50 ms")
+public class DatabaseQueryEvent extends jdk.jfr.Event {
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows")
+    public int rows;
+}
@@ -0,0 +1,103 @@
+package net.safedata.performance.training.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts, dumps and stops an on-demand Flight Recorder recording, which includes the custom events of the
+ * application - complementing the continuous recording started from the command line (-XX:StartFlightRecording)
+ */
+@Service
+public class FlightRecordings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlightRecordings.class);
+
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${jfr.recording.settings:default}")
+    private String settings;
+
+    @Value("${jfr.recording.max-age:10m}")
+    private Duration maxAge;
+
+    @Value("${jfr.recording.directory:${java.io.tmpdir}}")
+    private Path directory;
+
+    private Recording recording;
+
+    /**
+     * Starts a recording, if none is running
+     *
+     * @return the id of the running recording
+     */
+    public synchronized long start() {
+        if (isRunning()) {
+            return recording.getId();
+        }
+        // a recording stopped by other means (e.g. 'jcmd JFR.stop') still holds its disk chunks until it is closed
+        if (recording != null) {
+            recording.close();
+        }
+
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Cannot load the '" + settings + "' recording settings", e);
+        }
+        recording.setName("products");
+        recording.setMaxAge(maxAge);
+        recording.setToDisk(true);
+        recording.start();
+
+        LOGGER.info("Started the JFR recording {}, using the '{}' settings", recording.getId(), settings);
+        return recording.getId();
+    }
+
+    /**
+     * Writes the events recorded so far to a new file, while the recording keeps running
+     *
+     * @return the path of the written file
+     */
+    public synchronized Path dump() {
+        if (!isRunning()) {
+            throw new IllegalStateException("There is no running recording");
+        }
+
+        final Path file = directory.resolve("products-" + LocalDateTime.now().format(FILE_NAME_FORMAT) + ".jfr");
+        try {
+            Files.createDirectories(directory);
+            recording.dump(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        LOGGER.info("Dumped the JFR recording {} to {}", recording.getId(), file);
+        return file;
+    }
+
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            LOGGER.info("Stopped the JFR recording {}", recording.getId());
+            recording = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+}
@@ -0,0 +1,32 @@
+package net.safedata.performance.training.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The parallel generation of a products batch and its append to the store, including the retention evictions
+ */
+@Name("net.safedata.performance.training.ProductsGeneration")
+@Label("Products Generation")
+@Category({"Performance Training", "Products"})
+@Description("The generation of a products batch and its append to the store")
+@Threshold("10 ms")
+@StackTrace(false)
+public class ProductsGenerationEvent extends jdk.jfr.Event {
+
+    @Label("Requested Products")
+    public int requestedProducts;
+
+    @Label("Evicted Products")
+    public int evictedProducts;
+
+    @Label("Stored Products")
+    public int storedProducts;
+
+    @Label("Retention Policy")
+    public String retentionPolicy;
+}
@@ -0,0 +1,33 @@
+package net.safedata.performance.training.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A run of the scheduled products processing - the generation of a batch and the sum of the stored prices
+ */
+@Name("net.safedata.performance.training.ProductsProcessing")
+@Label("Products Processing")
+@Category({"Performance Training", "Products"})
+@Description("A run of the scheduled products processing")
+@Threshold("20 ms")
+@StackTrace(false)
+public class ProductsProcessingEvent extends jdk.jfr.Event {
+
+    @Label("Generated Products")
+    public int generatedProducts;
+
+    @Label("Stored Products")
+    public int storedProducts;
+
+    @Label("Total Price")
+    public double totalPrice;
+
+    @Label("Total Net Price")
+    @Description("The total price, after applying the discounts")
+    public double totalNetPrice;
+}
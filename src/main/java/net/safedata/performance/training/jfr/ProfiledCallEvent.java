@@ -0,0 +1,29 @@
+package net.safedata.performance.training.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * An invocation of an @ExecutionTimeProfiling method
+ */
+@Name("net.safedata.performance.training.ProfiledCall")
+@Label("Profiled Call")
+@Category({"Performance Training", "Profiling"})
+@Description("An invocation of an @ExecutionTimeProfiling method")
+@Threshold("10 ms")
+@StackTrace(false)
+public class ProfiledCallEvent extends jdk.jfr.Event {
+
+    @Label("Declaring Class")
+    public Class<?> declaringClass;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,45 @@
+package net.safedata.performance.training.mbean;
+
+import net.safedata.performance.training.aop.profiling.AllocationProfiles;
+import net.safedata.performance.training.aop.profiling.AllocationStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+@ManagedResource(
+        objectName = "ProfilingDemo:category=ProfilingDemo,name=AllocationsMBean",
+        description = "MBean used to display the bytes allocated by the @MemoryProfiling methods"
+)
+@Service
+public class AllocationsMBean {
+
+    private final AllocationProfiles allocationProfiles;
+
+    @Autowired
+    public AllocationsMBean(final AllocationProfiles allocationProfiles) {
+        this.allocationProfiles = allocationProfiles;
+    }
+
+    @ManagedAttribute(description = "The allocated bytes per invocation and the allocation rate of each profiled method")
+    public String[] getAllocations() {
+        return allocationProfiles.getStatistics()
+                                 .entrySet()
+                                 .stream()
+                                 .map(entry -> entry.getKey() + " - " + entry.getValue())
+                                 .toArray(String[]::new);
+    }
+
+    @ManagedOperation(description = "Returns the allocation statistics of a profiled method")
+    public String getAllocation(final String methodName) {
+        final AllocationStatistics methodStatistics = allocationProfiles.getStatistics().get(methodName);
+        return methodStatistics != null ? methodStatistics.toString()
+                                        : "The method '" + methodName + "' wasn't profiled";
+    }
+
+    @ManagedOperation(description = "Resets the allocation statistics")
+    public void reset() {
+        allocationProfiles.reset();
+    }
+}
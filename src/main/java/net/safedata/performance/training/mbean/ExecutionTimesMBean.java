@@ -0,0 +1,48 @@
+package net.safedata.performance.training.mbean;
+
+import net.safedata.performance.training.aop.profiling.ExecutionTimeHistograms;
+import net.safedata.performance.training.aop.profiling.ExecutionTimeStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+@ManagedResource(
+        objectName = "ProfilingDemo:category=ProfilingDemo,name=ExecutionTimesMBean",
+        description = "MBean used to display the execution time percentiles of the @ExecutionTimeProfiling methods"
+)
+@Service
+public class ExecutionTimesMBean {
+
+    private final ExecutionTimeHistograms executionTimeHistograms;
+
+    @Autowired
+    public ExecutionTimesMBean(final ExecutionTimeHistograms executionTimeHistograms) {
+        this.executionTimeHistograms = executionTimeHistograms;
+    }
+
+    @ManagedAttribute(description = "The execution time percentiles of each profiled method")
+    public String[] getExecutionTimes() {
+        return executionTimeHistograms.getStatistics()
+                                      .entrySet()
+                                      .stream()
+                                      .map(entry -> entry.getKey() + " - " + entry.getValue())
+                                      .toArray(String[]::new);
+    }
+
+    @ManagedOperation(description = "Returns the execution time percentiles of a profiled method")
+    public String getExecutionTime(final String methodName) {
+        final Map<String, ExecutionTimeStatistics> statistics = executionTimeHistograms.getStatistics();
+        final ExecutionTimeStatistics methodStatistics = statistics.get(methodName);
+        return methodStatistics != null ? methodStatistics.toString()
+                                        : "The method '" + methodName + "' wasn't profiled";
+    }
+
+    @ManagedOperation(description = "Resets the execution time histograms")
+    public void reset() {
+        executionTimeHistograms.reset();
+    }
+}
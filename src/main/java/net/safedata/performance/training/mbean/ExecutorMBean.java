@@ -0,0 +1,69 @@
+package net.safedata.performance.training.mbean;
+
+import net.safedata.performance.training.concurrent.InstrumentedExecutor;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * The activity of an {@link InstrumentedExecutor} - the times are in milliseconds
+ */
+@ManagedResource(description = "MBean used to display the activity of an instrumented executor")
+public class ExecutorMBean {
+
+    private final InstrumentedExecutor executor;
+
+    ExecutorMBean(final InstrumentedExecutor executor) {
+        this.executor = executor;
+    }
+
+    @ManagedAttribute(description = "The number of threads of the executor")
+    public int getPoolSize() {
+        return executor.getStatistics().poolSize();
+    }
+
+    @ManagedAttribute(description = "The threads currently executing a task")
+    public int getActiveThreads() {
+        return executor.getStatistics().activeThreads();
+    }
+
+    @ManagedAttribute(description = "The tasks waiting for a thread")
+    public int getQueueDepth() {
+        return executor.getStatistics().queueDepth();
+    }
+
+    @ManagedAttribute(description = "The capacity of the queue")
+    public int getQueueCapacity() {
+        return executor.getStatistics().queueCapacity();
+    }
+
+    @ManagedAttribute(description = "The tasks executed since the startup")
+    public long getCompletedTasks() {
+        return executor.getStatistics().completedTasks();
+    }
+
+    @ManagedAttribute(description = "The tasks rejected since the startup, as the queue was full")
+    public long getRejectedTasks() {
+        return executor.getStatistics().rejectedTasks();
+    }
+
+    @ManagedAttribute(description = "The 99th percentile of the time spent in the queue")
+    public double getWaitTimeP99() {
+        return executor.getStatistics().waitTime().getP99();
+    }
+
+    @ManagedAttribute(description = "The median execution time")
+    public double getExecutionTimeP50() {
+        return executor.getStatistics().executionTime().getP50();
+    }
+
+    @ManagedAttribute(description = "The 99th percentile of the execution time")
+    public double getExecutionTimeP99() {
+        return executor.getStatistics().executionTime().getP99();
+    }
+
+    @ManagedOperation(description = "Resets the wait and execution times")
+    public void resetLatencies() {
+        executor.resetLatencies();
+    }
+}
@@ -0,0 +1,37 @@
+package net.safedata.performance.training.mbean;
+
+import jakarta.annotation.PostConstruct;
+import net.safedata.performance.training.concurrent.InstrumentedExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.support.ObjectNameManager;
+import org.springframework.stereotype.Service;
+
+import javax.management.MalformedObjectNameException;
+import java.util.List;
+
+/**
+ * Exposes each {@link InstrumentedExecutor} of the application by its own {@link ExecutorMBean}
+ */
+@Service
+public class ExecutorsMBeanRegistrar {
+
+    private final List<InstrumentedExecutor> executors;
+    private final MBeanExporter mBeanExporter;
+
+    @Autowired
+    public ExecutorsMBeanRegistrar(final List<InstrumentedExecutor> executors, final MBeanExporter mBeanExporter) {
+        this.executors = executors;
+        this.mBeanExporter = mBeanExporter;
+    }
+
+    // unregistered by the exporter, when the context is closed
+    @PostConstruct
+    public void registerExecutors() throws MalformedObjectNameException {
+        for (final InstrumentedExecutor executor : executors) {
+            mBeanExporter.registerManagedResource(new ExecutorMBean(executor),
+                    ObjectNameManager.getInstance("ProfilingDemo:category=ProfilingDemo,type=Executor,name=" +
+                            executor.getName()));
+        }
+    }
+}
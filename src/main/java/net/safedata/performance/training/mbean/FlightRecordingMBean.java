@@ -0,0 +1,43 @@
+package net.safedata.performance.training.mbean;
+
+import net.safedata.performance.training.jfr.FlightRecordings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+@ManagedResource(
+        objectName = "ProfilingDemo:category=ProfilingDemo,name=FlightRecordingMBean",
+        description = "MBean used to start, dump and stop a Flight Recorder recording"
+)
+@Service
+public class FlightRecordingMBean {
+
+    private final FlightRecordings flightRecordings;
+
+    @Autowired
+    public FlightRecordingMBean(final FlightRecordings flightRecordings) {
+        this.flightRecordings = flightRecordings;
+    }
+
+    @ManagedAttribute(description = "Whether a recording is running")
+    public boolean isRunning() {
+        return flightRecordings.isRunning();
+    }
+
+    @ManagedOperation(description = "Starts a recording, returning its id")
+    public long start() {
+        return flightRecordings.start();
+    }
+
+    @ManagedOperation(description = "Dumps the running recording, returning the path of the written file")
+    public String dump() {
+        return flightRecordings.dump().toString();
+    }
+
+    @ManagedOperation(description = "Stops the running recording")
+    public void stop() {
+        flightRecordings.stop();
+    }
+}
@@ -0,0 +1,65 @@
+package net.safedata.performance.training.mbean;
+
+import net.safedata.performance.training.pipeline.StageStatistics;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.function.Supplier;
+
+/**
+ * The activity of a stage of the products processing pipeline - the times are in milliseconds
+ */
+@ManagedResource(description = "MBean used to display the activity of a processing pipeline stage")
+public class PipelineStageMBean {
+
+    private final Supplier<StageStatistics> statistics;
+
+    PipelineStageMBean(final Supplier<StageStatistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    @ManagedAttribute(description = "The number of workers of the stage")
+    public int getParallelism() {
+        return statistics.get().parallelism();
+    }
+
+    @ManagedAttribute(description = "The workers currently processing an item")
+    public int getBusyWorkers() {
+        return statistics.get().busyWorkers();
+    }
+
+    @ManagedAttribute(description = "The items waiting in the input queue")
+    public int getQueueDepth() {
+        return statistics.get().queueDepth();
+    }
+
+    @ManagedAttribute(description = "The capacity of the input queue")
+    public int getQueueCapacity() {
+        return statistics.get().queueCapacity();
+    }
+
+    @ManagedAttribute(description = "The items processed since the startup")
+    public long getProcessed() {
+        return statistics.get().processed();
+    }
+
+    @ManagedAttribute(description = "The items whose processing failed since the startup")
+    public long getFailed() {
+        return statistics.get().failed();
+    }
+
+    @ManagedAttribute(description = "The 99th percentile of the time spent in the input queue")
+    public double getWaitTimeP99() {
+        return statistics.get().waitTime().getP99();
+    }
+
+    @ManagedAttribute(description = "The median processing time")
+    public double getServiceTimeP50() {
+        return statistics.get().serviceTime().getP50();
+    }
+
+    @ManagedAttribute(description = "The 99th percentile of the processing time")
+    public double getServiceTimeP99() {
+        return statistics.get().serviceTime().getP99();
+    }
+}
@@ -0,0 +1,77 @@
+package net.safedata.performance.training.mbean;
+
+import jakarta.annotation.PostConstruct;
+import net.safedata.performance.training.pipeline.StageStatistics;
+import net.safedata.performance.training.service.ProductsProcessingPipeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.jmx.export.MBeanExporter;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.jmx.support.ObjectNameManager;
+import org.springframework.stereotype.Service;
+
+import javax.management.MalformedObjectNameException;
+
+/**
+ * The activity of the products processing pipeline; each of its stages is exposed by its own
+ * {@link PipelineStageMBean}, registered along this one
+ */
+@ManagedResource(
+        objectName = "ProfilingDemo:category=ProfilingDemo,name=ProcessingPipelineMBean",
+        description = "MBean used to display the activity of the products processing pipeline"
+)
+@Service
+@ConditionalOnBooleanProperty(name = "products.processing.enabled", matchIfMissing = true)
+public class ProcessingPipelineMBean {
+
+    private final ProductsProcessingPipeline processingPipeline;
+    private final MBeanExporter mBeanExporter;
+
+    @Autowired
+    public ProcessingPipelineMBean(final ProductsProcessingPipeline processingPipeline,
+                                   final MBeanExporter mBeanExporter) {
+        this.processingPipeline = processingPipeline;
+        this.mBeanExporter = mBeanExporter;
+    }
+
+    // unregistered by the exporter, when the context is closed
+    @PostConstruct
+    public void registerStages() throws MalformedObjectNameException {
+        for (final StageStatistics stage : processingPipeline.getStatistics()) {
+            final String stageName = stage.name();
+            mBeanExporter.registerManagedResource(new PipelineStageMBean(() -> statistics(stageName)),
+                    ObjectNameManager.getInstance("ProfilingDemo:category=ProfilingDemo,type=PipelineStage,name=" +
+                            stageName));
+        }
+    }
+
+    @ManagedAttribute(description = "The processing cycles submitted since the startup")
+    public long getSubmittedCycles() {
+        return processingPipeline.getSubmittedCycles();
+    }
+
+    @ManagedAttribute(description = "The processing cycles skipped since the startup, as the pipeline was saturated")
+    public long getSkippedCycles() {
+        return processingPipeline.getSkippedCycles();
+    }
+
+    @ManagedOperation(description = "Submits the given number of processing cycles, returns the accepted ones")
+    public int submitCycles(final int count) {
+        return processingPipeline.submit(count);
+    }
+
+    @ManagedOperation(description = "Resets the wait and service times of all the stages")
+    public void resetLatencies() {
+        processingPipeline.resetLatencies();
+    }
+
+    private StageStatistics statistics(final String stageName) {
+        return processingPipeline.getStatistics()
+                                 .stream()
+                                 .filter(stage -> stage.name().equals(stageName))
+                                 .findFirst()
+                                 .orElseThrow();
+    }
+}
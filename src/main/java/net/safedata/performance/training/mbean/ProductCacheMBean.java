@@ -0,0 +1,111 @@
+package net.safedata.performance.training.mbean;
+
+import net.safedata.performance.training.cache.ProductCache;
+import net.safedata.performance.training.cache.ResponseBodyCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+@ManagedResource(
+        objectName = "ProfilingDemo:category=ProfilingDemo,name=ProductCacheMBean",
+        description = "MBean used to display the statistics of the products cache"
+)
+@Service
+public class ProductCacheMBean {
+
+    private final ProductCache productCache;
+    private final ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    public ProductCacheMBean(final ProductCache productCache, final ResponseBodyCache responseBodyCache) {
+        this.productCache = productCache;
+        this.responseBodyCache = responseBodyCache;
+    }
+
+    @ManagedAttribute(description = "The hits of the products by id")
+    public long getProductsByIdHits() {
+        return productCache.getProductsByIdStats().hitCount();
+    }
+
+    @ManagedAttribute(description = "The misses of the products by id")
+    public long getProductsByIdMisses() {
+        return productCache.getProductsByIdStats().missCount();
+    }
+
+    @ManagedAttribute(description = "The evictions of the products by id, due to the size bound or to the TTL")
+    public long getProductsByIdEvictions() {
+        return productCache.getProductsByIdStats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "The hit rate of the products by id")
+    public double getProductsByIdHitRate() {
+        return productCache.getProductsByIdStats().hitRate();
+    }
+
+    @ManagedAttribute(description = "The estimated number of cached products by id")
+    public long getProductsByIdSize() {
+        return productCache.getProductsByIdSize();
+    }
+
+    @ManagedAttribute(description = "The batches of the products loaded by id, each loaded by a single query")
+    public long getProductsByIdBatches() {
+        return productCache.getProductsLoader().getBatches();
+    }
+
+    @ManagedAttribute(description = "The average number of ids of a batch")
+    public double getProductsByIdAverageBatchSize() {
+        return productCache.getProductsLoader().getAverageBatchSize();
+    }
+
+    @ManagedAttribute(description = "The average batch size, relative to the maximum one")
+    public double getProductsByIdBatchFillRatio() {
+        return productCache.getProductsLoader().getFillRatio();
+    }
+
+    @ManagedAttribute(description = "The batches dispatched as they reached the maximum size")
+    public long getProductsByIdFullBatches() {
+        return productCache.getProductsLoader().getFullBatches();
+    }
+
+    @ManagedAttribute(description = "The hits of all the products")
+    public long getAllProductsHits() {
+        return productCache.getAllProductsStats().hitCount();
+    }
+
+    @ManagedAttribute(description = "The misses of all the products")
+    public long getAllProductsMisses() {
+        return productCache.getAllProductsStats().missCount();
+    }
+
+    @ManagedAttribute(description = "The evictions of all the products")
+    public long getAllProductsEvictions() {
+        return productCache.getAllProductsStats().evictionCount();
+    }
+
+    @ManagedAttribute(description = "The hits of the encoded responses")
+    public long getResponseHits() {
+        return responseBodyCache.getStats().hitCount();
+    }
+
+    @ManagedAttribute(description = "The misses of the encoded responses")
+    public long getResponseMisses() {
+        return responseBodyCache.getStats().missCount();
+    }
+
+    @ManagedAttribute(description = "The size of the encoded responses, in bytes")
+    public long getResponsesSize() {
+        return responseBodyCache.getSizeInBytes();
+    }
+
+    @ManagedAttribute(description = "The version of the database products, incremented by each write")
+    public long getDataVersion() {
+        return productCache.getDataVersion();
+    }
+
+    @ManagedOperation(description = "Invalidates all the cached products")
+    public void invalidateAll() {
+        productCache.invalidateAll();
+    }
+}
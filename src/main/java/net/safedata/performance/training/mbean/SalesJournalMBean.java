@@ -0,0 +1,43 @@
+package net.safedata.performance.training.mbean;
+
+import net.safedata.performance.training.sales.SalesJournal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+
+@ManagedResource(
+        objectName = "ProfilingDemo:category=ProfilingDemo,name=SalesJournalMBean",
+        description = "MBean used to display the activity of the sales journal"
+)
+@Service
+public class SalesJournalMBean {
+
+    private final SalesJournal salesJournal;
+
+    @Autowired
+    public SalesJournalMBean(final SalesJournal salesJournal) {
+        this.salesJournal = salesJournal;
+    }
+
+    @ManagedAttribute(description = "The entries appended since the startup")
+    public long getAppendedEntries() {
+        return salesJournal.getAppendedEntries();
+    }
+
+    @ManagedAttribute(description = "The entries written and synced to the disk since the startup")
+    public long getDurableEntries() {
+        return salesJournal.getDurableEntries();
+    }
+
+    @ManagedAttribute(description = "The group commits (fsyncs) since the startup")
+    public long getCommits() {
+        return salesJournal.getCommits();
+    }
+
+    @ManagedAttribute(description = "The average number of entries per group commit")
+    public double getAverageEntriesPerCommit() {
+        final long commits = salesJournal.getCommits();
+        return commits > 0 ? (double) salesJournal.getDurableEntries() / commits : 0;
+    }
+}
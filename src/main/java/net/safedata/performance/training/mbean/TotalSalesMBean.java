@@ -1,11 +1,14 @@
 package net.safedata.performance.training.mbean;
 
+import net.safedata.performance.training.sales.SalesSummary;
 import net.safedata.performance.training.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+
 @ManagedResource(
         objectName = "ProfilingDemo:category=ProfilingDemo,name=TotalSalesMBean",
         description = "MBean used to display the sales for today"
@@ -24,4 +27,19 @@ public class TotalSalesMBean {
     public double getTotalSales() {
         return productService.getTotalSales();
     }
+
+    @ManagedAttribute(description = "The sales volume of the last minute")
+    public BigDecimal getSalesLastMinute() {
+        return productService.getSalesSummary().lastMinute();
+    }
+
+    @ManagedAttribute(description = "The sales volume of the last hour")
+    public BigDecimal getSalesLastHour() {
+        return productService.getSalesSummary().lastHour();
+    }
+
+    @ManagedAttribute(description = "The sales volume of the last day")
+    public BigDecimal getSalesLastDay() {
+        return productService.getSalesSummary().lastDay();
+    }
 }
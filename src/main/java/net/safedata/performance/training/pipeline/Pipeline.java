@@ -0,0 +1,133 @@
+package net.safedata.performance.training.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A chain of {@link PipelineStage}s, connected by bounded queues: each stage runs with its own parallelism, and a
+ * full queue blocks the stage feeding it. The items are submitted to the first stage; the results of the last stage
+ * are discarded, so it is expected to publish them.
+ *
+ * @param <T> the type of the submitted items
+ */
+public final class Pipeline<T> {
+
+    private final List<PipelineStage<?, ?>> stages;
+    private final PipelineStage<T, ?> firstStage;
+    private final long drainTimeoutMillis;
+
+    private Pipeline(final List<PipelineStage<?, ?>> stages, final String threadNamePrefix,
+                     final long drainTimeoutMillis) {
+        this.stages = List.copyOf(stages);
+        this.firstStage = stage(0);
+        this.drainTimeoutMillis = drainTimeoutMillis;
+
+        for (int index = 0; index < stages.size(); index++) {
+            final PipelineStage<Object, Object> stage = stage(index);
+            if (index < stages.size() - 1) {
+                final PipelineStage<Object, Object> nextStage = stage(index + 1);
+                stage.start(threadNamePrefix, nextStage::put);
+            } else {
+                stage.start(threadNamePrefix, result -> {
+                });
+            }
+        }
+    }
+
+    public static <T> Builder<T, T> builder(final String threadNamePrefix) {
+        return new Builder<>(threadNamePrefix, new ArrayList<>());
+    }
+
+    /**
+     * Submits the item, unless the first stage queue is full
+     *
+     * @return whether the item was accepted
+     */
+    public boolean offer(final T item) {
+        return firstStage.offer(item);
+    }
+
+    /**
+     * Submits the item, waiting for room in the first stage queue
+     */
+    public void put(final T item) throws InterruptedException {
+        firstStage.put(item);
+    }
+
+    public List<StageStatistics> getStatistics() {
+        return stages.stream()
+                     .map(PipelineStage::getStatistics)
+                     .toList();
+    }
+
+    public void resetLatencies() {
+        stages.forEach(PipelineStage::resetLatencies);
+    }
+
+    /**
+     * Drains the stages in order, so that the items already submitted are processed by all the stages. The workers
+     * of all the stages are stopped when it returns, even if a stage was not drained
+     *
+     * @throws IllegalStateException if a stage did not finish its items in the drain timeout
+     */
+    public void drain() throws InterruptedException {
+        try {
+            for (final PipelineStage<?, ?> stage : stages) {
+                if (!stage.drain(drainTimeoutMillis)) {
+                    throw new IllegalStateException("The '" + stage.getName() + "' stage was not drained in " +
+                            drainTimeoutMillis + " ms");
+                }
+            }
+        } finally {
+            // the workers are not daemon threads, so the stages after a failed one would keep the JVM running
+            stages.forEach(PipelineStage::stop);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <I, O> PipelineStage<I, O> stage(final int index) {
+        return (PipelineStage<I, O>) stages.get(index);
+    }
+
+    /**
+     * @param <T> the type of the submitted items
+     * @param <O> the output type of the last added stage
+     */
+    public static final class Builder<T, O> {
+        private final String threadNamePrefix;
+        private final List<PipelineStage<?, ?>> stages;
+        private long drainTimeoutMillis = 10_000;
+
+        private Builder(final String threadNamePrefix, final List<PipelineStage<?, ?>> stages) {
+            this.threadNamePrefix = threadNamePrefix;
+            this.stages = stages;
+        }
+
+        /**
+         * Adds a stage, fed by the results of the previous one - a null result is not passed on
+         */
+        public <R> Builder<T, R> stage(final String name, final int parallelism, final int queueCapacity,
+                                       final Function<O, R> function) {
+            stages.add(new PipelineStage<>(name, parallelism, queueCapacity, function));
+            final Builder<T, R> next = new Builder<>(threadNamePrefix, stages);
+            next.drainTimeoutMillis = drainTimeoutMillis;
+            return next;
+        }
+
+        public Builder<T, O> drainTimeoutMillis(final long timeoutMillis) {
+            this.drainTimeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * @return the pipeline, with the workers of all the stages started
+         */
+        public Pipeline<T> start() {
+            if (stages.isEmpty()) {
+                throw new IllegalStateException("A pipeline needs at least one stage");
+            }
+            return new Pipeline<>(stages, threadNamePrefix, drainTimeoutMillis);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package net.safedata.performance.training.pipeline;
+
+import net.safedata.performance.training.aop.profiling.ExecutionTimeStatistics;
+import org.HdrHistogram.AtomicHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A stage of a {@link Pipeline}: a bounded input queue, drained by a fixed number of worker threads, each applying
+ * the stage function and handing the result to the next stage.
+ * <p>
+ * Handing a result to a full downstream queue blocks the worker, so a slow stage slows down the stages before it
+ * instead of letting the queues grow - up to the first stage, whose producers can choose not to wait for it.
+ */
+public final class PipelineStage<I, O> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineStage.class);
+
+    private static final long LOWEST_DISCERNIBLE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final String name;
+    private final int parallelism;
+    private final int queueCapacity;
+    private final Function<I, O> function;
+    private final BlockingQueue<Queued<I>> queue;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    // the time spent by the items in the queue, respectively in the stage function
+    private final AtomicHistogram waitTimes = newHistogram();
+    private final AtomicHistogram serviceTimes = newHistogram();
+
+    private volatile boolean draining;
+
+    PipelineStage(final String name, final int parallelism, final int queueCapacity, final Function<I, O> function) {
+        if (parallelism < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("The parallelism and the queue capacity of the '" + name +
+                    "' stage must be positive");
+        }
+
+        this.name = name;
+        this.parallelism = parallelism;
+        this.queueCapacity = queueCapacity;
+        this.function = function;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    void start(final String threadNamePrefix, final Downstream<O> downstream) {
+        for (int index = 0; index < parallelism; index++) {
+            final Thread worker = Thread.ofPlatform()
+                                        .name(threadNamePrefix + name + "-" + index)
+                                        .unstarted(() -> work(downstream));
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Adds the item to the queue, if there is room for it
+     *
+     * @return whether the item was added
+     */
+    boolean offer(final I item) {
+        return !draining && queue.offer(new Queued<>(item, System.nanoTime()));
+    }
+
+    /**
+     * Adds the item to the queue, waiting for room if needed - the backpressure on the previous stage
+     */
+    void put(final I item) throws InterruptedException {
+        queue.put(new Queued<>(item, System.nanoTime()));
+    }
+
+    /**
+     * Lets the workers process the queued items, then stops them
+     *
+     * @return whether the workers stopped in the given time
+     */
+    boolean drain(final long timeoutMillis) throws InterruptedException {
+        draining = true;
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (final Thread worker : workers) {
+            final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0 || !worker.join(Duration.ofMillis(remainingMillis))) {
+                workers.forEach(Thread::interrupt);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the workers without waiting for the queued items - the items in process are interrupted
+     */
+    void stop() {
+        draining = true;
+        workers.forEach(Thread::interrupt);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public StageStatistics getStatistics() {
+        return new StageStatistics(name, parallelism, busyWorkers.get(), queue.size(), queueCapacity,
+                processed.sum(), failed.sum(), ExecutionTimeStatistics.of(waitTimes),
+                ExecutionTimeStatistics.of(serviceTimes));
+    }
+
+    public void resetLatencies() {
+        waitTimes.reset();
+        serviceTimes.reset();
+    }
+
+    private void work(final Downstream<O> downstream) {
+        try {
+            while (true) {
+                final Queued<I> queued = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (queued == null) {
+                    if (draining) {
+                        return;
+                    }
+                    continue;
+                }
+
+                final O result = apply(queued);
+                if (result != null) {
+                    downstream.put(result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private O apply(final Queued<I> queued) {
+        final long start = System.nanoTime();
+        record(waitTimes, start - queued.enqueuedAt());
+        busyWorkers.incrementAndGet();
+        try {
+            final O result = function.apply(queued.item());
+            processed.increment();
+            return result;
+        } catch (RuntimeException e) {
+            // a failed item is dropped, the stage goes on with the next ones
+            failed.increment();
+            LOGGER.error("The '{}' stage failed to process an item", name, e);
+            return null;
+        } finally {
+            busyWorkers.decrementAndGet();
+            record(serviceTimes, System.nanoTime() - start);
+        }
+    }
+
+    private static void record(final AtomicHistogram histogram, final long nanos) {
+        histogram.recordValue(Math.min(Math.max(nanos, LOWEST_DISCERNIBLE_NANOS), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    private static AtomicHistogram newHistogram() {
+        return new AtomicHistogram(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    @FunctionalInterface
+    interface Downstream<T> {
+        void put(T item) throws InterruptedException;
+    }
+
+    private record Queued<T>(T item, long enqueuedAt) {
+    }
+}
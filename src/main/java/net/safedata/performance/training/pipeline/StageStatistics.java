@@ -0,0 +1,18 @@
+package net.safedata.performance.training.pipeline;
+
+import net.safedata.performance.training.aop.profiling.ExecutionTimeStatistics;
+
+/**
+ * The activity of a {@link PipelineStage}
+ *
+ * @param busyWorkers the workers currently applying the stage function
+ * @param queueDepth  the items waiting in the input queue of the stage
+ * @param processed   the items processed since the startup
+ * @param failed      the items whose processing failed, hence were dropped
+ * @param waitTime    the time spent by the items in the input queue
+ * @param serviceTime the time spent by the items in the stage function
+ */
+public record StageStatistics(String name, int parallelism, int busyWorkers, int queueDepth, int queueCapacity,
+                              long processed, long failed, ExecutionTimeStatistics waitTime,
+                              ExecutionTimeStatistics serviceTime) {
+}
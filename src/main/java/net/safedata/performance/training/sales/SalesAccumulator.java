@@ -0,0 +1,86 @@
+package net.safedata.performance.training.sales;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free sales accumulator, with exact decimal semantics: the amounts are rounded to cents and accumulated as
+ * {@code long}s in striped {@link LongAdder}s, so concurrent writers don't contend on a single field and the total
+ * doesn't drift because of the floating point errors.
+ * <p>
+ * Besides the total, it keeps the sales of the last minute, hour and day, in rolling windows.
+ */
+public class SalesAccumulator {
+
+    private static final int CENTS_SCALE = 2;
+
+    private final LongAdder totalCents = new LongAdder();
+
+    private final SalesWindow lastMinute = new SalesWindow(Duration.ofSeconds(1), 60);
+    private final SalesWindow lastHour = new SalesWindow(Duration.ofMinutes(1), 60);
+    private final SalesWindow lastDay = new SalesWindow(Duration.ofMinutes(15), 96);
+
+    public void add(final double amount) {
+        add(BigDecimal.valueOf(amount));
+    }
+
+    public void add(final BigDecimal amount) {
+        addCents(toCents(amount));
+    }
+
+    public void addCents(final long cents) {
+        final long now = System.currentTimeMillis();
+
+        totalCents.add(cents);
+        lastMinute.add(now, cents);
+        lastHour.add(now, cents);
+        lastDay.add(now, cents);
+    }
+
+    /**
+     * Sets the total sales, e.g. when restoring a snapshot - the windowed sales are not restored, as they are relative
+     * to the time of the snapshot
+     */
+    public void restoreTotalCents(final long cents) {
+        totalCents.reset();
+        totalCents.add(cents);
+    }
+
+    public BigDecimal getTotal() {
+        return fromCents(totalCents.sum());
+    }
+
+    public long getTotalCents() {
+        return totalCents.sum();
+    }
+
+    public BigDecimal getLastMinute() {
+        return fromCents(lastMinute.sum(System.currentTimeMillis()));
+    }
+
+    public BigDecimal getLastHour() {
+        return fromCents(lastHour.sum(System.currentTimeMillis()));
+    }
+
+    public BigDecimal getLastDay() {
+        return fromCents(lastDay.sum(System.currentTimeMillis()));
+    }
+
+    public SalesSummary getSummary() {
+        final long now = System.currentTimeMillis();
+        return new SalesSummary(fromCents(totalCents.sum()), fromCents(lastMinute.sum(now)),
+                fromCents(lastHour.sum(now)), fromCents(lastDay.sum(now)));
+    }
+
+    public static long toCents(final BigDecimal amount) {
+        return amount.setScale(CENTS_SCALE, RoundingMode.HALF_EVEN)
+                     .unscaledValue()
+                     .longValueExact();
+    }
+
+    public static BigDecimal fromCents(final long cents) {
+        return BigDecimal.valueOf(cents, CENTS_SCALE);
+    }
+}
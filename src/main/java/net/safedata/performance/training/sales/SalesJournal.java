@@ -0,0 +1,389 @@
+package net.safedata.performance.training.sales;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only, write-ahead journal of the sales, replayed at startup to recover the total sales.
+ * <p>
+ * The entries are queued by the producers and written by a single writer thread, which drains all the queued entries
+ * and makes them durable with a single fsync - a group commit - so the producers are not blocked by the disk. They
+ * are blocked only if the writer falls behind by a full queue, as a back-pressure.
+ * <p>
+ * The journal is split in segments. A new segment is started when the current one is full and at each startup, and
+ * it begins with a checkpoint entry holding the total sales up to that point, so the oldest segments can be deleted
+ * without losing the total. Each entry has a fixed size and a CRC32C checksum, so a torn write at the end of the last
+ * segment is detected and ignored by the replay.
+ */
+@Component
+public class SalesJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SalesJournal.class);
+
+    public enum EntryType {
+        CHECKPOINT,
+        PROCESSING_CYCLE,
+        SALE
+    }
+
+    // crc (int), type (int), sequence (long), timestamp (long), amount in cents (long), products (int), reserved (int)
+    static final int ENTRY_SIZE = 40;
+
+    private static final String SEGMENT_PREFIX = "sales-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final EntryType[] ENTRY_TYPES = EntryType.values();
+
+    private record Entry(EntryType type, long timestamp, long cents, int products) {
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<Entry> queue;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final Object durableMonitor = new Object();
+    private volatile long durable;
+    private volatile boolean running;
+
+    private final LongAdder commits = new LongAdder();
+
+    // owned by the writer thread, after the recovery
+    private final long recoveredTotalCents;
+    private long totalCents;
+    private long nextSequence;
+    private FileChannel segment;
+    private long segmentPosition;
+    private boolean rollBeforeCommit;
+    private final ByteBuffer batchBuffer;
+    private final CRC32C checksum = new CRC32C();
+
+    private final Thread writer;
+
+    @Autowired
+    public SalesJournal(@Value("${sales.journal.enabled:true}") final boolean enabled,
+                        @Value("${sales.journal.directory:${java.io.tmpdir}/sales-journal}") final Path directory,
+                        @Value("${sales.journal.segment-size:64MB}") final DataSize segmentSize,
+                        @Value("${sales.journal.max-segments:8}") final int maxSegments,
+                        @Value("${sales.journal.queue-capacity:65536}") final int queueCapacity) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = Math.max(segmentSize.toBytes(), ENTRY_SIZE * 2L);
+        this.maxSegments = Math.max(maxSegments, 1);
+        this.maxBatchSize = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchBuffer = ByteBuffer.allocateDirect(queueCapacity * ENTRY_SIZE)
+                                     .order(ByteOrder.LITTLE_ENDIAN);
+
+        if (!enabled) {
+            this.recoveredTotalCents = 0;
+            this.writer = null;
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+            this.recoveredTotalCents = replay();
+            this.totalCents = recoveredTotalCents;
+            rollSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the sales journal in " + directory, e);
+        }
+
+        this.running = true;
+        this.writer = Thread.ofPlatform()
+                            .name("sales-journal-writer")
+                            .daemon(true)
+                            .start(this::writeEntries);
+    }
+
+    public static SalesJournal disabled() {
+        return new SalesJournal(false, null, DataSize.ofBytes(0), 1, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the total sales replayed from the journal at startup
+     */
+    public long getRecoveredTotalCents() {
+        return recoveredTotalCents;
+    }
+
+    public void appendProcessingCycle(final int products) {
+        append(new Entry(EntryType.PROCESSING_CYCLE, System.currentTimeMillis(), 0, products));
+    }
+
+    public void appendSale(final long cents) {
+        append(new Entry(EntryType.SALE, System.currentTimeMillis(), cents, 0));
+    }
+
+    /**
+     * Waits until all the entries appended before this call are durable
+     *
+     * @return false if the timeout elapsed before
+     */
+    public boolean awaitDurable(final Duration timeout) throws InterruptedException {
+        final long target = enqueued.get();
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (durableMonitor) {
+            while (durable < target) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(durableMonitor, remaining);
+            }
+        }
+        return true;
+    }
+
+    public long getAppendedEntries() {
+        return enqueued.get();
+    }
+
+    public long getDurableEntries() {
+        return durable;
+    }
+
+    /**
+     * @return the number of group commits (fsyncs)
+     */
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writer == null || !running) {
+            return;
+        }
+
+        running = false;
+        writer.join();
+        try {
+            segment.close();
+        } catch (IOException e) {
+            LOGGER.warn("Cannot close the sales journal segment", e);
+        }
+        LOGGER.info("Closed the sales journal, after {} entries written in {} commits", durable, commits.sum());
+    }
+
+    private void append(final Entry entry) {
+        if (!enabled) {
+            return;
+        }
+        if (!running) {
+            throw new IllegalStateException("The sales journal is closed");
+        }
+
+        // counted before being queued, so the awaited count always includes the caller's own entries
+        enqueued.incrementAndGet();
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            enqueued.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending to the sales journal", e);
+        }
+    }
+
+    private void writeEntries() {
+        final List<Entry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    final Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                }
+
+                commit(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                // the batch is retried in a new segment, as the current one may end with a partially written entry
+                LOGGER.error("Cannot write to the sales journal", e);
+                rollBeforeCommit = true;
+                sleepBeforeRetry();
+            }
+        }
+    }
+
+    private void commit(final List<Entry> batch) throws IOException {
+        if (rollBeforeCommit || segmentPosition + (long) batch.size() * ENTRY_SIZE > segmentSize) {
+            rollSegment();
+            rollBeforeCommit = false;
+        }
+
+        batchBuffer.clear();
+        long batchTotalCents = totalCents;
+        for (Entry entry : batch) {
+            if (entry.type() == EntryType.SALE) {
+                batchTotalCents += entry.cents();
+            }
+            encode(batchBuffer, entry, nextSequence + batchBuffer.position() / ENTRY_SIZE);
+        }
+        batchBuffer.flip();
+        writeFully(batchBuffer);
+
+        // a single fsync for all the entries of the batch
+        segment.force(false);
+        commits.increment();
+
+        segmentPosition += (long) batch.size() * ENTRY_SIZE;
+        nextSequence += batch.size();
+        totalCents = batchTotalCents;
+
+        synchronized (durableMonitor) {
+            durable += batch.size();
+            durableMonitor.notifyAll();
+        }
+    }
+
+    // starts a new segment, beginning with a checkpoint of the total sales, and deletes the oldest segments
+    private void rollSegment() throws IOException {
+        if (segment != null && segment.isOpen()) {
+            segment.close();
+        }
+
+        final Path segmentFile = directory.resolve(SEGMENT_PREFIX + "%016d".formatted(nextSequence) + SEGMENT_SUFFIX);
+        segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        segmentPosition = 0;
+
+        batchBuffer.clear();
+        encode(batchBuffer, new Entry(EntryType.CHECKPOINT, System.currentTimeMillis(), totalCents, 0), nextSequence);
+        batchBuffer.flip();
+        writeFully(batchBuffer);
+        segment.force(true);
+        segmentPosition += ENTRY_SIZE;
+        nextSequence++;
+
+        final List<Path> segments = listSegments();
+        for (int index = 0; index < segments.size() - maxSegments; index++) {
+            Files.deleteIfExists(segments.get(index));
+        }
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+    }
+
+    private void encode(final ByteBuffer buffer, final Entry entry, final long sequence) {
+        final int start = buffer.position();
+        buffer.putInt(0)
+              .putInt(entry.type().ordinal())
+              .putLong(sequence)
+              .putLong(entry.timestamp())
+              .putLong(entry.cents())
+              .putInt(entry.products())
+              .putInt(0);
+
+        checksum.reset();
+        checksum.update(buffer.slice(start + Integer.BYTES, ENTRY_SIZE - Integer.BYTES));
+        buffer.putInt(start, (int) checksum.getValue());
+    }
+
+    /**
+     * Replays the segments, oldest first
+     *
+     * @return the total sales
+     */
+    private long replay() throws IOException {
+        long total = 0;
+        long entries = 0;
+        final ByteBuffer entry = ByteBuffer.allocate(ENTRY_SIZE)
+                                           .order(ByteOrder.LITTLE_ENDIAN);
+
+        for (Path segmentFile : listSegments()) {
+            try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+                while (true) {
+                    entry.clear();
+                    while (entry.hasRemaining() && channel.read(entry) >= 0) {
+                        // reads a whole entry
+                    }
+                    if (entry.hasRemaining() || !isValid(entry)) {
+                        // the end of the segment, or an entry which was not completely written
+                        break;
+                    }
+
+                    final EntryType type = ENTRY_TYPES[entry.getInt(4)];
+                    final long cents = entry.getLong(24);
+                    switch (type) {
+                        case CHECKPOINT -> total = cents;
+                        case SALE -> total += cents;
+                        case PROCESSING_CYCLE -> {
+                        }
+                    }
+                    nextSequence = entry.getLong(8) + 1;
+                    entries++;
+                }
+            }
+        }
+
+        LOGGER.info("Replayed {} sales journal entries, the total sales being {}", entries,
+                SalesAccumulator.fromCents(total));
+        return total;
+    }
+
+    private boolean isValid(final ByteBuffer entry) {
+        checksum.reset();
+        checksum.update(entry.slice(Integer.BYTES, ENTRY_SIZE - Integer.BYTES));
+        final int type = entry.getInt(4);
+        return entry.getInt(0) == (int) checksum.getValue() && type >= 0 && type < ENTRY_TYPES.length;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX) &&
+                                        file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private static void sleepBeforeRetry() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
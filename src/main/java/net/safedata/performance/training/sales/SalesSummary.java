@@ -0,0 +1,12 @@
+package net.safedata.performance.training.sales;
+
+import java.math.BigDecimal;
+
+public record SalesSummary(BigDecimal total, BigDecimal lastMinute, BigDecimal lastHour, BigDecimal lastDay) {
+
+    @Override
+    public String toString() {
+        return "total: " + total + ", last minute: " + lastMinute + ", last hour: " + lastHour +
+                ", last day: " + lastDay;
+    }
+}
@@ -0,0 +1,67 @@
+package net.safedata.performance.training.sales;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A rolling time window, kept as a ring buffer of fixed width buckets. The writers add to the bucket of the current
+ * time slot, replacing it (with a CAS) when it belongs to an older slot; the readers sum the buckets which are still
+ * inside the window. Neither the readers nor the writers block.
+ * <p>
+ * The window moves with a bucket granularity - e.g. a one hour window with one minute buckets covers between
+ * 59 and 60 minutes.
+ */
+class SalesWindow {
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    SalesWindow(final Duration bucketWidth, final int bucketsNumber) {
+        this.bucketMillis = bucketWidth.toMillis();
+        this.buckets = new AtomicReferenceArray<>(bucketsNumber);
+    }
+
+    void add(final long nowMillis, final long cents) {
+        final long slot = nowMillis / bucketMillis;
+        final int index = (int) (slot % buckets.length());
+
+        Bucket bucket = buckets.get(index);
+        while (bucket == null || bucket.slot < slot) {
+            final Bucket newBucket = new Bucket(slot);
+            if (buckets.compareAndSet(index, bucket, newBucket)) {
+                bucket = newBucket;
+            } else {
+                bucket = buckets.get(index);
+            }
+        }
+
+        // a bucket from a newer slot means this add was overtaken by the window moving on, so it is dropped
+        if (bucket.slot == slot) {
+            bucket.cents.add(cents);
+        }
+    }
+
+    long sum(final long nowMillis) {
+        final long currentSlot = nowMillis / bucketMillis;
+        final long oldestSlot = currentSlot - buckets.length() + 1;
+
+        long sum = 0;
+        for (int index = 0; index < buckets.length(); index++) {
+            final Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.slot >= oldestSlot && bucket.slot <= currentSlot) {
+                sum += bucket.cents.sum();
+            }
+        }
+        return sum;
+    }
+
+    private static final class Bucket {
+        private final long slot;
+        private final LongAdder cents = new LongAdder();
+
+        private Bucket(final long slot) {
+            this.slot = slot;
+        }
+    }
+}
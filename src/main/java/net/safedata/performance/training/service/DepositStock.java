@@ -0,0 +1,7 @@
+package net.safedata.performance.training.service;
+
+/**
+ * The products in stock in a deposit
+ */
+public record DepositStock(int deposit, int stock) {
+}
@@ -0,0 +1,112 @@
+package net.safedata.performance.training.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.json.JsonFactory;
+
+import javax.sql.DataSource;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+
+/**
+ * Streams the database products directly to an output stream, row by row, without materializing them in a list.
+ * <p>
+ * The rows are fetched in batches of 'products.export.fetch-size' rows. For H2, the JDBC URL should also contain
+ * ';LAZY_QUERY_EXECUTION=1', otherwise the whole result set is still materialized by the database driver.
+ */
+@Service
+public class ProductExportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductExportService.class);
+
+    private static final String SELECT_PRODUCTS = "SELECT id, name, price FROM product";
+
+    public enum Format {
+        /** one compact JSON object per line */
+        NDJSON,
+        /** a compact JSON array */
+        JSON_ARRAY
+    }
+
+    // a failed export must not look complete: the generator doesn't close the open array, nor the response stream,
+    // which is flushed by Spring MVC when the export succeeds, respectively aborted by the container when it fails
+    private static final JsonFactory NDJSON_FACTORY = JsonFactory.builder()
+                                                                 .rootValueSeparator("\n")
+                                                                 .disable(StreamWriteFeature.AUTO_CLOSE_CONTENT)
+                                                                 .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                                                                 .build();
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+                                                               .disable(StreamWriteFeature.AUTO_CLOSE_CONTENT)
+                                                               .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                                                               .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+    private final Duration timeout;
+
+    @Autowired
+    public ProductExportService(DataSource dataSource,
+                                @Value("${products.export.fetch-size:1000}") int fetchSize,
+                                @Value("${products.export.timeout:10m}") Duration timeout) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return how long an export response may take, longer than the timeout of the other asynchronous requests
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the number of exported products
+     */
+    public long exportDatabaseProducts(final OutputStream outputStream, final Format format) {
+        final JsonFactory jsonFactory = format == Format.NDJSON ? NDJSON_FACTORY : JSON_FACTORY;
+        final long[] exported = new long[1];
+
+        try (JsonGenerator generator = jsonFactory.createGenerator(ObjectWriteContext.empty(), outputStream)) {
+            if (format == Format.JSON_ARRAY) {
+                generator.writeStartArray();
+            }
+
+            jdbcTemplate.query(connection -> {
+                final PreparedStatement statement = connection.prepareStatement(SELECT_PRODUCTS,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                generator.writeStartObject();
+                generator.writeNumberProperty("id", resultSet.getLong(1));
+                generator.writeStringProperty("name", resultSet.getString(2));
+                generator.writeNumberProperty("price", resultSet.getDouble(3));
+                generator.writeEndObject();
+
+                // the first product is sent right away, the next ones as the response buffer fills
+                if (exported[0]++ == 0) {
+                    generator.flush();
+                }
+            });
+
+            if (format == Format.JSON_ARRAY) {
+                generator.writeEndArray();
+            } else if (exported[0] > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        LOGGER.debug("Exported {} products as {}", exported[0], format);
+        return exported[0];
+    }
+}
@@ -0,0 +1,118 @@
+package net.safedata.performance.training.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import net.safedata.performance.training.cache.ProductCache;
+import net.safedata.performance.training.domain.ingest.PooledIdAllocator;
+import net.safedata.performance.training.domain.ingest.ProductBatchInserter;
+import net.safedata.performance.training.domain.model.ProductEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Bulk-ingest of generated products, using one of the {@link Mode}s
+ */
+@Service
+public class ProductIngestService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductIngestService.class);
+
+    public enum Mode {
+        /** JPA persist, sent in JDBC batches by Hibernate */
+        JPA,
+        /** plain JDBC batched inserts */
+        JDBC_BATCH,
+        /** a single H2 'INSERT ... SELECT FROM CSVREAD' statement */
+        H2_CSV
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ProductBatchInserter batchInserter;
+    private final ProductCache productCache;
+    private final int maxCount;
+
+    @Autowired
+    public ProductIngestService(DataSource dataSource, ProductCache productCache,
+                                @Value("${products.ingest.batch-size:1000}") int batchSize,
+                                @Value("${products.ingest.max-count:5000000}") int maxCount) {
+        this.productCache = productCache;
+        this.maxCount = maxCount;
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        final PooledIdAllocator idAllocator = new PooledIdAllocator(jdbcTemplate, ProductEntity.ID_SEQUENCE,
+                ProductEntity.ID_ALLOCATION_SIZE);
+        this.batchInserter = new ProductBatchInserter(jdbcTemplate, idAllocator, batchSize);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the count is not positive or is above 'products.ingest.max-count'
+     */
+    @Transactional
+    public int ingestGeneratedProducts(final int count, final Mode mode) {
+        if (count < 1 || count > maxCount) {
+            throw new IllegalArgumentException("The number of products must be between 1 and " + maxCount);
+        }
+
+        // the products are generated chunk by chunk (row by row for the CSV file), never all at once
+        final long start = System.nanoTime();
+        final int ingested = switch (mode) {
+            case JPA -> ingestInChunks(count, this::persistInBatches);
+            case JDBC_BATCH -> ingestInChunks(count, batchInserter::insertBatched);
+            case H2_CSV -> {
+                final Stream<ProductEntity> products = IntStream.range(0, count)
+                                                                .mapToObj(ProductService::buildProductEntity);
+                yield batchInserter.insertFromCsv(products::iterator);
+            }
+        };
+
+        final long elapsedMillis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+        LOGGER.info("Generated and ingested {} products using {} in {} ms ({} rows/s)", ingested, mode, elapsedMillis,
+                ingested * 1000L / elapsedMillis);
+
+        // the bulk inserts bypass the repository, so the cached (missing) products can't be invalidated one by one
+        productCache.invalidateAll();
+        return ingested;
+    }
+
+    private int ingestInChunks(final int count, final ToIntFunction<List<ProductEntity>> inserter) {
+        final int chunkSize = batchInserter.getBatchSize();
+        int ingested = 0;
+        for (int from = 0; from < count; from += chunkSize) {
+            final List<ProductEntity> chunk = IntStream.range(from, Math.min(from + chunkSize, count))
+                                                       .parallel()
+                                                       .mapToObj(ProductService::buildProductEntity)
+                                                       .toList();
+            ingested += inserter.applyAsInt(chunk);
+        }
+        return ingested;
+    }
+
+    private int persistInBatches(final List<ProductEntity> products) {
+        final int batchSize = batchInserter.getBatchSize();
+        for (int index = 0; index < products.size(); index++) {
+            entityManager.persist(products.get(index));
+
+            // keeps the persistence context small - the flushed entities are no longer needed
+            if ((index + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        return products.size();
+    }
+}
@@ -0,0 +1,75 @@
+package net.safedata.performance.training.service;
+
+import net.safedata.performance.training.domain.model.ProductPage;
+import net.safedata.performance.training.domain.model.ProductSummary;
+import net.safedata.performance.training.domain.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset paginated reads of the database products. The cursors are opaque tokens, containing the last id of the
+ * previous page.
+ */
+@Service
+public class ProductPageService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final ProductRepository productRepository;
+
+    @Autowired
+    public ProductPageService(final ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public ProductPage getProductsPage(final String cursor, final int size, final Double minPrice,
+                                       final Double maxPrice) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        final long lastSeenId = cursor == null || cursor.isEmpty() ? Long.MIN_VALUE : decodeCursor(cursor);
+        // one more product is read, to know if there is a next page
+        final Limit limit = Limit.of(size + 1);
+
+        final List<ProductSummary> products = minPrice == null && maxPrice == null
+                ? productRepository.findByIdGreaterThanOrderByIdAsc(lastSeenId, limit)
+                : productRepository.findByIdGreaterThanAndPriceBetweenOrderByIdAsc(lastSeenId,
+                        minPrice != null ? minPrice : -Double.MAX_VALUE,
+                        maxPrice != null ? maxPrice : Double.MAX_VALUE, limit);
+
+        if (products.size() <= size) {
+            return new ProductPage(products, null);
+        }
+
+        final List<ProductSummary> page = products.subList(0, size);
+        return new ProductPage(page, encodeCursor(page.get(size - 1).getId()));
+    }
+
+    static String encodeCursor(final long lastSeenId) {
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString((CURSOR_PREFIX + lastSeenId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static long decodeCursor(final String cursor) {
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor '" + cursor + "'");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (final IllegalArgumentException exception) { // includes the NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor '" + cursor + "'", exception);
+        }
+    }
+}
@@ -1,27 +1,49 @@
 package net.safedata.performance.training.service;
 
+import net.safedata.performance.training.cache.ProductCache;
+import net.safedata.performance.training.codec.ModelCodec;
+import net.safedata.performance.training.concurrent.ParallelAggregator;
+import net.safedata.performance.training.concurrent.PartialResult;
+import net.safedata.performance.training.concurrent.ScatterGather;
+import net.safedata.performance.training.concurrent.SingleFlight;
 import net.safedata.performance.training.domain.model.ProductEntity;
 import net.safedata.performance.training.domain.repository.ProductRepository;
+import net.safedata.performance.training.jfr.DatabaseQueryEvent;
+import net.safedata.performance.training.jfr.ProductsGenerationEvent;
+import net.safedata.performance.training.jfr.ProductsProcessingEvent;
+import net.safedata.performance.training.model.Discount;
 import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.sales.SalesAccumulator;
+import net.safedata.performance.training.sales.SalesJournal;
+import net.safedata.performance.training.sales.SalesSummary;
+import net.safedata.performance.training.store.MappedProductSnapshot;
+import net.safedata.performance.training.store.PriceAggregates;
+import net.safedata.performance.training.store.ProductChunk;
+import net.safedata.performance.training.store.ProductRetention;
+import net.safedata.performance.training.store.ProductStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StopWatch;
 
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 @Service
 public class ProductService {
@@ -34,52 +56,57 @@ public class ProductService {
 
     private static final Runtime RUNTIME = Runtime.getRuntime();
 
+    private static final String ALL_PRODUCTS_QUERY = "SELECT * FROM product";
+
     private final DecimalFormat decimalFormat = new DecimalFormat("#,###.#");
 
-    // kept in memory to show the case of a continuously growing memory
-    private final List<Product> products = new ArrayList<>();
-    private double totalSales = 0;
+    // kept in memory, capped by the retention policy - 'unbounded' shows the case of a continuously growing memory
+    private final ProductStore products = new ProductStore();
+    private final SalesAccumulator totalSales = new SalesAccumulator();
+
+    // the concurrent retrievals of the same product type share a single execution
+    private final SingleFlight<String, List<Product>> productsRetrievals = new SingleFlight<>();
 
     private final JdbcTemplate jdbcTemplate;
     private final ProductRepository productRepository;
+    private final ProductRetention productRetention;
+    private final ProductCache productCache;
+    private final SalesJournal salesJournal;
+    private final ParallelAggregator parallelAggregator;
+    private final ScatterGather stocksScatterGather;
 
     @Autowired
-    public ProductService(DataSource dataSource, ProductRepository productRepository) {
+    public ProductService(DataSource dataSource, ProductRepository productRepository,
+                          ProductRetention productRetention, ProductCache productCache, SalesJournal salesJournal,
+                          ParallelAggregator parallelAggregator, ScatterGather stocksScatterGather) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.productRepository = productRepository;
+        this.productRetention = productRetention;
+        this.productCache = productCache;
+        this.salesJournal = salesJournal;
+        this.parallelAggregator = parallelAggregator;
+        this.stocksScatterGather = stocksScatterGather;
+
+        if (salesJournal.isEnabled()) {
+            totalSales.restoreTotalCents(salesJournal.getRecoveredTotalCents());
+        }
     }
 
     //@EventListener(ApplicationReadyEvent.class)
     @Transactional
     public void insertSomeProducts() {
-        List<ProductEntity> productsToBeInserted = new ArrayList<>();
-        IntStream.rangeClosed(0, 100)
-                 .parallel() // low-hanging fruit --> always parallel
-                 .forEach(index -> productsToBeInserted.add(buildProductEntity(index)));
-
-        productRepository.saveAll(productsToBeInserted);
+        final List<ProductEntity> productsToBeInserted =
+                IntStream.rangeClosed(0, 100)
+                         .parallel() // low-hanging fruit --> always parallel
+                         .mapToObj(ProductService::buildProductEntity)
+                         .toList();
+
+        // the entities are new (no id), so they are persisted in JDBC batches, with ids from the pooled sequence
+        productCache.saveAll(productsToBeInserted);
     }
 
-    private static ProductEntity buildProductEntity(int index) {
-        return new ProductEntity(index, "The product " + index, 1000 * RANDOM.nextInt(50000));
-    }
-
-    @Scheduled(
-            fixedRate = 3,
-            timeUnit = TimeUnit.SECONDS
-    )
-    public void simulateProductsProcessing() {
-        System.out.println();
-
-        final long memoryBefore = getFreeMemoryInMB();
-        LOGGER.info("JVM memory in use before: {} MB", memoryBefore);
-
-        final long now = System.currentTimeMillis();
-        processALotOfProducts();
-        LOGGER.info("The entire processing took {} ms", System.currentTimeMillis() - now);
-
-        final long memoryAfter = getFreeMemoryInMB();
-        LOGGER.info("JVM memory in use after: {} MB", memoryAfter);
+    static ProductEntity buildProductEntity(int index) {
+        return new ProductEntity(0, "The product " + index, 1000 * ThreadLocalRandom.current().nextInt(50000));
     }
 
     /*
@@ -115,24 +142,97 @@ public class ProductService {
     }
 
     private void processALotOfProducts() {
+        final ProductsProcessingEvent processingEvent = new ProductsProcessingEvent();
+        processingEvent.begin();
+
         final int productsNumber = RANDOM.nextInt(50000); //000
         generateProducts(productsNumber);
 
-        final double totalPrice = getProductsPriceSum(products);
-        LOGGER.info("The total price of {} products is {}", products.size(), decimalFormat.format(totalPrice));
+        final PriceAggregates prices = recordSale(productsNumber);
+        final double totalPrice = prices.sum();
+        logProcessedProducts(prices);
+
+        processingEvent.end();
+        if (processingEvent.shouldCommit()) {
+            processingEvent.generatedProducts = productsNumber;
+            processingEvent.storedProducts = prices.count();
+            processingEvent.totalPrice = totalPrice;
+            processingEvent.totalNetPrice = prices.netSum();
+            processingEvent.commit();
+        }
+    }
 
-        totalSales += totalPrice;
-        LOGGER.info("The total sales is currently {}", decimalFormat.format(totalSales));
+    /**
+     * Stores the products of a processing cycle, then records the price of all the stored products as a sale - the
+     * 'aggregate' stage of the {@link ProductsProcessingPipeline}
+     *
+     * @return the prices of the stored products
+     */
+    public PriceAggregates storeProcessedProducts(final ProductChunk processedProducts) {
+        storeProducts(processedProducts);
+        return recordSale(processedProducts.size());
     }
 
-    private void generateProducts(int productsNumber) {
-        IntStream.rangeClosed(0, productsNumber)
-                 .parallel() // low-hanging fruit --> always parallel
-                 .forEach(index -> products.add(buildProduct(index)));
+    /**
+     * @return the given number of new products, built sequentially by the calling thread
+     */
+    public ProductChunk buildProducts(final int productsNumber) {
+        final ProductChunk chunk = new ProductChunk();
+        for (int index = 0; index < productsNumber; index++) {
+            chunk.add(buildProduct(index));
+        }
+        return chunk;
+    }
+
+    void logProcessedProducts(final PriceAggregates prices) {
+        LOGGER.info("The total price of {} products is {} ({} after the discounts; min {}, max {}, mean {})",
+                prices.count(), decimalFormat.format(prices.sum()), decimalFormat.format(prices.netSum()),
+                decimalFormat.format(prices.min()), decimalFormat.format(prices.max()),
+                decimalFormat.format(prices.mean()));
+        LOGGER.info("The total sales is currently {}", decimalFormat.format(totalSales.getTotal()));
+    }
+
+    private PriceAggregates recordSale(final int processedProducts) {
+        final PriceAggregates prices = products.aggregate();
 
-        @SuppressWarnings("unused")
-        final Stream<Product> dynamicallyParallelStream =
-                StreamSupport.stream(products.spliterator(), products.size() > 100);
+        // journaled without waiting for the disk - the journal commits the queued entries in groups
+        final long totalPriceCents = SalesAccumulator.toCents(BigDecimal.valueOf(prices.sum()));
+        totalSales.addCents(totalPriceCents);
+        salesJournal.appendProcessingCycle(processedProducts);
+        salesJournal.appendSale(totalPriceCents);
+        return prices;
+    }
+
+    void generateProducts(int productsNumber) {
+        final ProductsGenerationEvent generationEvent = new ProductsGenerationEvent();
+        generationEvent.begin();
+
+        // each fork-join task fills its own chunk, the chunks are linked without locking and appended at once
+        final ProductChunk generatedProducts =
+                IntStream.rangeClosed(0, productsNumber)
+                         .parallel() // low-hanging fruit --> always parallel
+                         .collect(ProductChunk::new, (chunk, index) -> chunk.add(buildProduct(index)),
+                                  ProductChunk::merge);
+
+        final int evicted = storeProducts(generatedProducts);
+
+        generationEvent.end();
+        if (generationEvent.shouldCommit()) {
+            generationEvent.requestedProducts = productsNumber;
+            generationEvent.evictedProducts = evicted;
+            generationEvent.storedProducts = products.size();
+            generationEvent.retentionPolicy = productRetention.getPolicy().name();
+            generationEvent.commit();
+        }
+    }
+
+    private int storeProducts(final ProductChunk generatedProducts) {
+        final int evicted = productRetention.append(products, generatedProducts);
+        if (evicted > 0) {
+            LOGGER.info("Evicted {} products, as per the '{}' retention policy", evicted,
+                    productRetention.getPolicy());
+        }
+        return evicted;
     }
 
     //@Scheduled(fixedRate = 5000)
@@ -147,20 +247,111 @@ public class ProductService {
         LOGGER.info("JVM memory in use after generating a lot of data: {} MB", memoryAfter);
     }
 
-    private static double getProductsPriceSum(Collection<Product> products) {
-        //TODO replace with StreamSupport.parallel
+    static double getProductsPriceSum(Collection<Product> products) {
         return products.stream()
                        .filter(Objects::nonNull)
                        .mapToDouble(Product::getPrice)
                        .sum();
     }
 
+    static double getProductsPriceSum(ProductStore products) {
+        return products.aggregate().sum();
+    }
+
+    /**
+     * @return the statistics of the in-memory product prices, aggregated in parallel for the large stores
+     */
+    public DoubleSummaryStatistics getPriceStatistics() {
+        return parallelAggregator.aggregatePrices("price-statistics", products, DoubleStream::summaryStatistics);
+    }
+
+    /**
+     * @return the number of in-memory products with a discount of each type
+     */
+    public Map<Discount.Type, Long> getDiscountTypeCounts() {
+        return parallelAggregator.aggregate("discount-type-counts", products,
+                productsStream -> productsStream.flatMap(product -> product.getDiscount().stream())
+                                                .collect(Collectors.groupingBy(Discount::getDiscountType,
+                                                        Collectors.counting())));
+    }
+
     private long getFreeMemoryInMB() {
         return (RUNTIME.totalMemory() - RUNTIME.freeMemory()) / BYTES_IN_MB;
     }
 
+    /**
+     * @return the in-memory products, in the {@link ModelCodec} binary encoding
+     */
+    public byte[] getProductsSnapshot() {
+        final ModelCodec.ProductsEncoder encoder = new ModelCodec.ProductsEncoder(products.size());
+        products.forEach(encoder::add);
+        return encoder.finish();
+    }
+
+    /**
+     * Replaces the in-memory products with the ones of a {@link #getProductsSnapshot() snapshot}
+     *
+     * @return the number of restored products
+     */
+    public int restoreProductsSnapshot(final byte[] snapshot) {
+        final List<Product> restoredProducts = ModelCodec.decodeProducts(snapshot);
+        final ProductChunk chunk = new ProductChunk();
+        restoredProducts.forEach(chunk::add);
+
+        final int evicted = productRetention.replace(products, chunk);
+        LOGGER.info("Restored {} products from a snapshot of {} bytes, {} of them being evicted",
+                restoredProducts.size(), snapshot.length, evicted);
+        return restoredProducts.size() - evicted;
+    }
+
+    public MappedProductSnapshot.Info writeMappedSnapshot(final Path file) throws IOException {
+        return MappedProductSnapshot.write(file, products, totalSales.getTotalCents());
+    }
+
+    /**
+     * Replaces the in-memory products and the total sales with the ones of a {@link #writeMappedSnapshot(Path)
+     * mapped snapshot}
+     */
+    public MappedProductSnapshot.Info restoreMappedSnapshot(final Path file) throws IOException {
+        final MappedProductSnapshot.Info snapshot = MappedProductSnapshot.restore(file, products);
+        productRetention.restart(products);
+        // the journal, when enabled, is more recent than the snapshot
+        if (!salesJournal.isEnabled()) {
+            totalSales.restoreTotalCents(snapshot.totalSalesCents());
+        }
+        return snapshot;
+    }
+
     public double getTotalSales() {
-        return totalSales;
+        return totalSales.getTotal().doubleValue();
+    }
+
+    /**
+     * @return the stocks of the given number of deposits, computed in parallel - the deposits whose stock is not
+     * computed before the deadline are reported as missing, instead of delaying the response
+     * @throws IllegalArgumentException if there are more deposits than the stock computations which can be queued
+     */
+    public PartialResult<DepositStock> getDepositStocks(final int deposits, final Duration deadline) {
+        // checked before creating the computations, most of which would be rejected anyway
+        if (deposits < 1 || deposits > stocksScatterGather.getMaxTasks()) {
+            throw new IllegalArgumentException("The number of deposits must be between 1 and " +
+                    stocksScatterGather.getMaxTasks());
+        }
+        final List<Callable<DepositStock>> computations =
+                IntStream.range(0, deposits)
+                         .mapToObj(deposit -> (Callable<DepositStock>) () -> computeDepositStock(deposit))
+                         .toList();
+        return stocksScatterGather.invokeAll(computations, deadline);
+    }
+
+    // simulates a call to the inventory system of the deposit
+    private static DepositStock computeDepositStock(final int deposit) throws InterruptedException {
+        Thread.sleep(ThreadLocalRandom.current().nextInt(500));
+        return new DepositStock(deposit, ThreadLocalRandom.current().nextInt(100));
+    }
+
+    public SalesSummary getSalesSummary() {
+        return totalSales.getSummary();
     }
 
     public List<Product> getALotOfProducts(final String productType, final String retrievingType) {
@@ -173,13 +364,14 @@ public class ProductService {
         return products;
     }
 
-    public synchronized List<Product> getSynchronizedProducts(final String productType) {
-        return getALotOfProducts(productType, "synchronized");
+    public List<Product> getSynchronizedProducts(final String productType) {
+        return productsRetrievals.execute(productType, () ->
+                Collections.unmodifiableList(getALotOfProducts(productType, "single-flight")));
     }
 
-    private Product buildProduct(final int index) {
+    Product buildProduct(final int index) {
         //sleepALittle(10);
-        return new Product(index, "The product " + index, 1000 * RANDOM.nextInt(50000) + 10);
+        return new Product(index, "The product " + index, 1000 * ThreadLocalRandom.current().nextInt(50000) + 10);
     }
 
     private void sleepALittle(final int bound) {
@@ -206,8 +398,40 @@ public class ProductService {
     }
 
     public List<ProductEntity> getAllDatabaseProducts() {
-        return jdbcTemplate.query("SELECT * FROM product", (rs, row) -> buildProductEntityFromResultSet(rs));
+        return productCache.getAllProducts(this::queryAllDatabaseProducts);
+    }
+
+    public Optional<ProductEntity> getDatabaseProduct(final long id) {
+        return productCache.getProduct(id);
+    }
+
+    public long getDatabaseProductsVersion() {
+        return productCache.getDataVersion();
+    }
+
+    public Duration getDatabaseProductTtl() {
+        return productCache.getProductTtl();
+    }
+
+    public Duration getAllDatabaseProductsTtl() {
+        return productCache.getAllProductsTtl();
+    }
+
+    private List<ProductEntity> queryAllDatabaseProducts() {
+        final DatabaseQueryEvent queryEvent = new DatabaseQueryEvent();
+        queryEvent.begin();
+
+        final List<ProductEntity> productEntities = jdbcTemplate.query(ALL_PRODUCTS_QUERY,
+                (rs, row) -> buildProductEntityFromResultSet(rs));
         //return productRepository.findAll();
+
+        queryEvent.end();
+        if (queryEvent.shouldCommit()) {
+            queryEvent.sql = ALL_PRODUCTS_QUERY;
+            queryEvent.rows = productEntities.size();
+            queryEvent.commit();
+        }
+        return productEntities;
     }
 
     private static ProductEntity buildProductEntityFromResultSet(ResultSet rs) throws SQLException {
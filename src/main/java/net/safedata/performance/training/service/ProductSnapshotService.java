@@ -0,0 +1,75 @@
+package net.safedata.performance.training.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.safedata.performance.training.store.MappedProductSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Keeps a memory-mapped snapshot of the in-memory products, so that a restarted application starts with the products
+ * and the total sales it had, instead of regenerating them
+ */
+@Service
+@ConditionalOnBooleanProperty(name = "products.snapshot.enabled")
+public class ProductSnapshotService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductSnapshotService.class);
+
+    private final ProductService productService;
+    private final Path snapshotFile;
+
+    @Autowired
+    public ProductSnapshotService(final ProductService productService,
+                                  @Value("${products.snapshot.file}") final Path snapshotFile) {
+        this.productService = productService;
+        this.snapshotFile = snapshotFile;
+    }
+
+    // invoked before the scheduled tasks start, so the restored products are not mixed with newly generated ones
+    @PostConstruct
+    public void restoreSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            final MappedProductSnapshot.Info snapshot = productService.restoreMappedSnapshot(snapshotFile);
+            LOGGER.info("Restored {} products from the snapshot taken at {}, in {} ms", snapshot.products(),
+                    snapshot.createdAt(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            // a missing, unreadable or corrupted snapshot only means a cold start - the store is still empty
+            LOGGER.warn("Cannot restore the products snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @Scheduled(
+            fixedRateString = "${products.snapshot.interval:30s}",
+            initialDelayString = "${products.snapshot.interval:30s}"
+    )
+    public void writeSnapshot() {
+        final long start = System.nanoTime();
+        try {
+            final MappedProductSnapshot.Info snapshot = productService.writeMappedSnapshot(snapshotFile);
+            LOGGER.info("Wrote {} products to the snapshot {}, in {} ms", snapshot.products(), snapshotFile,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            LOGGER.error("Cannot write the products snapshot " + snapshotFile, e);
+        }
+    }
+
+    @PreDestroy
+    public void writeFinalSnapshot() {
+        writeSnapshot();
+    }
+}
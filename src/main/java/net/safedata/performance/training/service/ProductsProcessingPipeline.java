@@ -0,0 +1,178 @@
+package net.safedata.performance.training.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.safedata.performance.training.jfr.ProductsProcessingEvent;
+import net.safedata.performance.training.pipeline.Pipeline;
+import net.safedata.performance.training.pipeline.StageStatistics;
+import net.safedata.performance.training.store.PriceAggregates;
+import net.safedata.performance.training.store.ProductChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.DecimalFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The scheduled products processing, as a pipeline of stages connected by bounded queues:
+ * <pre>
+ * generate (N workers) -> price (M workers) -> aggregate (1 worker) -> publish (1 worker)
+ * </pre>
+ * The trigger only submits a processing cycle to the first stage, without waiting for it: when the pipeline is
+ * saturated, the first queue is full and the cycle is skipped. Hence the scheduler is never blocked and the cycles
+ * never pile up, while the slowest stage sets the pace of the others.
+ */
+@Service
+@ConditionalOnBooleanProperty(name = "products.processing.enabled", matchIfMissing = true)
+public class ProductsProcessingPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductsProcessingPipeline.class);
+
+    private static final long BYTES_IN_MB = 1048576;
+    private static final Runtime RUNTIME = Runtime.getRuntime();
+
+    private record Cycle(long id, int requestedProducts, ProductsProcessingEvent event) {
+    }
+
+    private record GeneratedCycle(Cycle cycle, ProductChunk products) {
+    }
+
+    private record PricedCycle(Cycle cycle, ProductChunk products, PriceAggregates generatedPrices) {
+    }
+
+    private record AggregatedCycle(Cycle cycle, PriceAggregates generatedPrices, PriceAggregates storedPrices) {
+    }
+
+    private final ProductService productService;
+    private final int maxProducts;
+    private final int queueCapacity;
+    private final int generateParallelism;
+    private final int priceParallelism;
+
+    // used by the single 'publish' worker
+    private final DecimalFormat decimalFormat = new DecimalFormat("#,###.#");
+
+    private final AtomicLong cycles = new AtomicLong();
+    private final LongAdder skippedCycles = new LongAdder();
+
+    private Pipeline<Cycle> pipeline;
+
+    @Autowired
+    public ProductsProcessingPipeline(final ProductService productService,
+                                      @Value("${products.processing.max-products:50000}") final int maxProducts,
+                                      @Value("${products.processing.queue-capacity:4}") final int queueCapacity,
+                                      @Value("${products.processing.generate-parallelism:2}")
+                                      final int generateParallelism,
+                                      @Value("${products.processing.price-parallelism:1}") final int priceParallelism) {
+        this.productService = productService;
+        this.maxProducts = maxProducts;
+        this.queueCapacity = queueCapacity;
+        this.generateParallelism = generateParallelism;
+        this.priceParallelism = priceParallelism;
+    }
+
+    @PostConstruct
+    public void start() {
+        // the store appends and the sales are recorded by a single worker, the results are published in that order
+        pipeline = Pipeline.<Cycle>builder("processing-")
+                           .stage("generate", generateParallelism, queueCapacity, this::generate)
+                           .stage("price", priceParallelism, queueCapacity, this::price)
+                           .stage("aggregate", 1, queueCapacity, this::aggregate)
+                           .stage("publish", 1, queueCapacity, this::publish)
+                           .start();
+    }
+
+    @Scheduled(fixedRateString = "${products.processing.interval:3s}")
+    public void trigger() {
+        submit(1);
+    }
+
+    /**
+     * Submits the given number of processing cycles, skipping the ones which do not fit in the first stage queue
+     *
+     * @return the number of accepted cycles
+     */
+    public int submit(final int count) {
+        int accepted = 0;
+        for (int index = 0; index < count; index++) {
+            final ProductsProcessingEvent event = new ProductsProcessingEvent();
+            event.begin();
+
+            final Cycle cycle = new Cycle(cycles.incrementAndGet(),
+                    ThreadLocalRandom.current().nextInt(maxProducts), event);
+            if (pipeline.offer(cycle)) {
+                accepted++;
+            } else {
+                skippedCycles.increment();
+            }
+        }
+
+        if (accepted < count) {
+            LOGGER.warn("The processing pipeline is saturated, skipped {} of {} cycles", count - accepted, count);
+        }
+        return accepted;
+    }
+
+    public List<StageStatistics> getStatistics() {
+        return pipeline.getStatistics();
+    }
+
+    public void resetLatencies() {
+        pipeline.resetLatencies();
+    }
+
+    public long getSubmittedCycles() {
+        return cycles.get();
+    }
+
+    public long getSkippedCycles() {
+        return skippedCycles.sum();
+    }
+
+    // the submitted cycles are processed before the sales journal is closed
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        pipeline.drain();
+    }
+
+    private GeneratedCycle generate(final Cycle cycle) {
+        return new GeneratedCycle(cycle, productService.buildProducts(cycle.requestedProducts()));
+    }
+
+    private PricedCycle price(final GeneratedCycle generated) {
+        return new PricedCycle(generated.cycle(), generated.products(), generated.products().aggregate());
+    }
+
+    private AggregatedCycle aggregate(final PricedCycle priced) {
+        return new AggregatedCycle(priced.cycle(), priced.generatedPrices(),
+                productService.storeProcessedProducts(priced.products()));
+    }
+
+    private Void publish(final AggregatedCycle aggregated) {
+        final Cycle cycle = aggregated.cycle();
+        LOGGER.info("Processing cycle {}: {} new products, priced at {}", cycle.id(),
+                aggregated.generatedPrices().count(), decimalFormat.format(aggregated.generatedPrices().netSum()));
+        productService.logProcessedProducts(aggregated.storedPrices());
+        LOGGER.info("JVM memory in use: {} MB", (RUNTIME.totalMemory() - RUNTIME.freeMemory()) / BYTES_IN_MB);
+
+        // from the submission to the publishing, including the time spent in the queues
+        final ProductsProcessingEvent event = cycle.event();
+        event.end();
+        if (event.shouldCommit()) {
+            event.generatedProducts = cycle.requestedProducts();
+            event.storedProducts = aggregated.storedPrices().count();
+            event.totalPrice = aggregated.storedPrices().sum();
+            event.totalNetPrice = aggregated.storedPrices().netSum();
+            event.commit();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,102 @@
+package net.safedata.performance.training.service;
+
+import net.safedata.performance.training.domain.model.ProductEntity;
+import net.safedata.performance.training.domain.model.ProductSummary;
+import net.safedata.performance.training.domain.repository.ProductRepository;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.sales.SalesSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Non-blocking variants of the product operations: no thread is held while a client waits for its next item.
+ * <p>
+ * The database is still read by blocking JDBC calls, which are confined to the bounded elastic scheduler - one keyset
+ * page at a time, and only when the client has consumed the previous page, so a slow client doesn't buffer the table.
+ */
+@Service
+public class ReactiveProductService {
+
+    private static final int PAGE_SIZE = 500;
+
+    private static final Duration SALES_PERIOD = Duration.ofSeconds(1);
+
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final Duration listingTimeout;
+
+    // a single timer for all the clients, started by the first one and stopped after the last one leaves
+    private final Flux<SalesSummary> salesUpdates;
+
+    @Autowired
+    public ReactiveProductService(final ProductRepository productRepository, final ProductService productService,
+                                  @Value("${products.export.timeout:10m}") final Duration listingTimeout) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.listingTimeout = listingTimeout;
+
+        this.salesUpdates = Flux.interval(SALES_PERIOD)
+                                .map(tick -> productService.getSalesSummary())
+                                .share();
+    }
+
+    /**
+     * @return the database products, in pages of up to {@value #PAGE_SIZE} detached entities - the projections are
+     * proxies, which would be serialized along with their internal properties. The listing fails with a
+     * {@link java.util.concurrent.TimeoutException} if it takes longer than the export timeout
+     */
+    public Flux<List<ProductEntity>> getDatabaseProducts() {
+        return Flux.defer(() -> {
+            // a single deadline for the whole listing, not for each page
+            final Mono<Long> deadline = Mono.delay(listingTimeout).cache();
+            return readDatabaseProducts().timeout(deadline, page -> deadline);
+        });
+    }
+
+    private Flux<List<ProductEntity>> readDatabaseProducts() {
+        return readPage(Long.MIN_VALUE).expand(page -> page.size() < PAGE_SIZE
+                                                               ? Mono.empty()
+                                                               : readPage(page.getLast().getId()))
+                                       .map(page -> page.stream()
+                                                        .map(product -> new ProductEntity(product.getId(),
+                                                                product.getName(), product.getPrice()))
+                                                        .toList());
+    }
+
+    /**
+     * @return a random number of products, each built after a random delay - the non-blocking variant of
+     * {@link ProductService#getALotOfProducts(String, String)}
+     */
+    public Flux<Product> generateProducts() {
+        return Flux.range(0, ThreadLocalRandom.current().nextInt(70))
+                   .concatMap(index -> Mono.delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(index + 10)))
+                                           .map(tick -> productService.buildProduct(index)));
+    }
+
+    public Mono<SalesSummary> getSalesSummary() {
+        return Mono.fromSupplier(productService::getSalesSummary);
+    }
+
+    /**
+     * @return the current sales summary, followed by its changes
+     */
+    public Flux<SalesSummary> getSalesUpdates() {
+        return getSalesSummary().concatWith(salesUpdates)
+                                .distinctUntilChanged();
+    }
+
+    private Mono<List<ProductSummary>> readPage(final long lastSeenId) {
+        return Mono.fromCallable(() -> productRepository.findByIdGreaterThanOrderByIdAsc(lastSeenId,
+                           Limit.of(PAGE_SIZE)))
+                   .subscribeOn(Schedulers.boundedElastic());
+    }
+}
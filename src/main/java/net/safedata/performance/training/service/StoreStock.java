@@ -0,0 +1,7 @@
+package net.safedata.performance.training.service;
+
+/**
+ * The stock of a product in a store, and how long its inventory system took to report it
+ */
+public record StoreStock(int storeId, String storeName, int stock, long lookupMillis) {
+}
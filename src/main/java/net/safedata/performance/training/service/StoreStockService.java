@@ -0,0 +1,72 @@
+package net.safedata.performance.training.service;
+
+import net.safedata.performance.training.catalog.DemoStores;
+import net.safedata.performance.training.concurrent.FanOut;
+import net.safedata.performance.training.model.Section;
+import net.safedata.performance.training.model.Store;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Looks up the stock of a product in many stores at once - each store is queried on its own virtual thread, as a
+ * {@link FanOut} subtask, so a query lasts as long as the slowest store it needs.
+ * <p>
+ * The inventory system of each store is simulated: it answers in 20 to 120 ms, the slow stores (one in twenty) in
+ * about a second, and fails from time to time.
+ */
+@Service
+public class StoreStockService {
+
+    private static final int SLOW_STORE_EVERY = 20;
+    private static final int FAILURE_EVERY = 1000;
+
+    private final List<Store> stores;
+
+    public StoreStockService(@Value("${products.stocks.stores:50}") final int stores,
+                             @Value("${products.stocks.products-per-section:1000}") final int productsPerSection) {
+        this.stores = DemoStores.generate(1, stores, productsPerSection);
+    }
+
+    /**
+     * @return the stock of the product in all the stores, failing as soon as a store fails or exceeds the timeout
+     */
+    public List<StoreStock> getStocks(final String productName, final Duration storeTimeout) {
+        return FanOut.all("store-stock", lookups(productName), storeTimeout);
+    }
+
+    /**
+     * @return the stock of the product in the first stores which answer, failing only when too few stores answer
+     * before the timeout
+     */
+    public List<StoreStock> getFirstStocks(final String productName, final int count, final Duration storeTimeout) {
+        return FanOut.first("store-stock", lookups(productName), count, storeTimeout);
+    }
+
+    private List<Callable<StoreStock>> lookups(final String productName) {
+        return stores.stream()
+                     .map(store -> (Callable<StoreStock>) () -> lookupStock(store, productName))
+                     .toList();
+    }
+
+    private static StoreStock lookupStock(final Store store, final String productName) throws InterruptedException {
+        final long start = System.nanoTime();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        Thread.sleep(store.getId() % SLOW_STORE_EVERY == 0 ? random.nextInt(900, 1100) : random.nextInt(20, 120));
+        if (random.nextInt(FAILURE_EVERY) == 0) {
+            throw new IllegalStateException("The inventory system of the store " + store.getId() + " is unavailable");
+        }
+
+        final int stock = (int) store.getStoreSections()
+                                     .stream()
+                                     .map(Section::getProducts)
+                                     .flatMap(products -> products.orElse(List.of()).stream())
+                                     .filter(product -> product.getName().equals(productName))
+                                     .count();
+        return new StoreStock(store.getId(), store.getName(), stock, (System.nanoTime() - start) / 1_000_000);
+    }
+}
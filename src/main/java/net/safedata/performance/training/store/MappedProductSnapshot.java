@@ -0,0 +1,202 @@
+package net.safedata.performance.training.store;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Writes the content of a {@link ProductStore} to a memory-mapped file, and maps it back into a store.
+ * <p>
+ * The file has a fixed-width record per product, followed by the table of the distinct names:
+ * <pre>
+ * header  (48 bytes): magic, version, record size, products count, names count, reserved,
+ *                     total sales (cents), creation time (epoch millis), names offset
+ * records (24 bytes): id (int), name code (int), price (double), discount value (int), flags (int)
+ * names:              length (int), UTF-8 bytes
+ * </pre>
+ * A new snapshot is written to a temporary file, which then atomically replaces the previous one, so a crash while
+ * writing never leaves a partial snapshot behind. When restoring, the file is mapped read-only and the pages are read
+ * by the OS as the columns are filled from them, instead of being read through a stream.
+ */
+public final class MappedProductSnapshot {
+
+    private static final int MAGIC = 0x5054534E; // 'PTSN'
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 48;
+    private static final int RECORD_SIZE = 24;
+
+    // a single mapped buffer is indexed by int
+    private static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    private static final int DISCOUNTED = 1;
+    private static final int PERCENT_DISCOUNT = 1 << 1;
+
+    /**
+     * @param products        the number of products
+     * @param totalSalesCents the total sales, stored along the products
+     * @param createdAt       the time of the snapshot
+     */
+    public record Info(int products, long totalSalesCents, Instant createdAt) {
+    }
+
+    private MappedProductSnapshot() {
+    }
+
+    public static Info write(final Path file, final ProductStore store, final long totalSalesCents) throws IOException {
+        // the store is locked only while its columns are copied, not while the file is written
+        final ProductColumns columns = store.copyColumns();
+
+        final byte[][] names = new byte[columns.names().length][];
+        long namesSize = 0;
+        for (int code = 0; code < names.length; code++) {
+            names[code] = columns.names()[code].getBytes(StandardCharsets.UTF_8);
+            namesSize += Integer.BYTES + names[code].length;
+        }
+
+        final long namesOffset = HEADER_SIZE + (long) columns.size() * RECORD_SIZE;
+        final long fileSize = namesOffset + namesSize;
+        if (fileSize > MAX_FILE_SIZE) {
+            throw new IllegalStateException("The products snapshot would have " + fileSize + " bytes, more than the " +
+                    MAX_FILE_SIZE + " bytes which can be mapped at once");
+        }
+        final Instant createdAt = Instant.now();
+
+        final Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC)
+                  .putInt(VERSION)
+                  .putInt(RECORD_SIZE)
+                  .putInt(columns.size())
+                  .putInt(names.length)
+                  .putInt(0)
+                  .putLong(totalSalesCents)
+                  .putLong(createdAt.toEpochMilli())
+                  .putLong(namesOffset);
+
+            for (int index = 0; index < columns.size(); index++) {
+                int flags = 0;
+                if (isSet(columns.discounted(), index)) {
+                    flags |= DISCOUNTED;
+                }
+                if (isSet(columns.percentDiscounts(), index)) {
+                    flags |= PERCENT_DISCOUNT;
+                }
+
+                buffer.putInt(columns.ids()[index])
+                      .putInt(columns.nameCodes()[index])
+                      .putDouble(columns.prices()[index])
+                      .putInt(columns.discountValues()[index])
+                      .putInt(flags);
+            }
+
+            for (byte[] name : names) {
+                buffer.putInt(name.length)
+                      .put(name);
+            }
+            buffer.force();
+        }
+
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Info(columns.size(), totalSalesCents, createdAt);
+    }
+
+    /**
+     * Replaces the content of the store with the products of the snapshot
+     *
+     * @throws IllegalArgumentException if the file is not a valid snapshot, e.g. truncated, corrupted or larger than
+     *                                  2 GB - the store is left unchanged
+     */
+    public static Info restore(final Path file, final ProductStore store) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IllegalArgumentException("The file " + file + " is too small to be a products snapshot");
+            }
+            if (fileSize > MAX_FILE_SIZE) {
+                throw new IllegalArgumentException("The file " + file + " has " + fileSize + " bytes, more than the " +
+                        MAX_FILE_SIZE + " bytes of a products snapshot");
+            }
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+                throw new IllegalArgumentException("The file " + file + " is not a supported products snapshot");
+            }
+            final int size = buffer.getInt(12);
+            final int namesCount = buffer.getInt(16);
+            final long totalSalesCents = buffer.getLong(24);
+            final Instant createdAt = Instant.ofEpochMilli(buffer.getLong(32));
+            final long namesOffset = buffer.getLong(40);
+            if (size < 0 || namesCount < 0 || namesOffset != HEADER_SIZE + (long) size * RECORD_SIZE ||
+                    namesOffset > fileSize) {
+                throw new IllegalArgumentException("The products snapshot " + file + " is truncated or corrupted");
+            }
+
+            final int[] ids = new int[size];
+            final double[] prices = new double[size];
+            final int[] nameCodes = new int[size];
+            final int[] discountValues = new int[size];
+            final long[] discounted = new long[words(size)];
+            final long[] percentDiscounts = new long[words(size)];
+
+            int position = HEADER_SIZE;
+            for (int index = 0; index < size; index++, position += RECORD_SIZE) {
+                ids[index] = buffer.getInt(position);
+                nameCodes[index] = buffer.getInt(position + 4);
+                prices[index] = buffer.getDouble(position + 8);
+                discountValues[index] = buffer.getInt(position + 16);
+
+                final int flags = buffer.getInt(position + 20);
+                if ((flags & DISCOUNTED) != 0) {
+                    discounted[index >>> 6] |= 1L << index;
+                }
+                if ((flags & PERCENT_DISCOUNT) != 0) {
+                    percentDiscounts[index >>> 6] |= 1L << index;
+                }
+                if (nameCodes[index] < 0 || nameCodes[index] >= namesCount) {
+                    throw new IllegalArgumentException("The products snapshot " + file + " is corrupted");
+                }
+            }
+
+            final String[] names = new String[namesCount];
+            buffer.position((int) namesOffset);
+            for (int code = 0; code < namesCount; code++) {
+                if (buffer.remaining() < Integer.BYTES) {
+                    throw new IllegalArgumentException("The products snapshot " + file + " is truncated");
+                }
+                final int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IllegalArgumentException("The products snapshot " + file + " is truncated");
+                }
+                final byte[] name = new byte[length];
+                buffer.get(name);
+                names[code] = new String(name, StandardCharsets.UTF_8);
+            }
+
+            store.replaceColumns(new ProductColumns(size, ids, prices, nameCodes, discountValues, discounted,
+                    percentDiscounts, names));
+            return new Info(size, totalSalesCents, createdAt);
+        }
+    }
+
+    private static boolean isSet(final long[] bitmap, final int index) {
+        return (bitmap[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static int words(final int bits) {
+        return (bits + Long.SIZE - 1) >>> 6;
+    }
+}
@@ -0,0 +1,49 @@
+package net.safedata.performance.training.store;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for the product names - each distinct name is stored once and referenced by its code
+ */
+class NameDictionary {
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    NameDictionary() {
+    }
+
+    // the names are encoded in the given order, so their codes are their indexes
+    NameDictionary(final String[] names) {
+        for (String name : names) {
+            encode(name);
+        }
+    }
+
+    int encode(final String name) {
+        final Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+
+        final int newCode = names.size();
+        names.add(name);
+        codes.put(name, newCode);
+        return newCode;
+    }
+
+    String decode(final int code) {
+        return names.get(code);
+    }
+
+    String[] toArray() {
+        return names.toArray(String[]::new);
+    }
+
+    int size() {
+        return names.size();
+    }
+}
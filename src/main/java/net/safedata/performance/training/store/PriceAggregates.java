@@ -0,0 +1,21 @@
+package net.safedata.performance.training.store;
+
+/**
+ * The aggregated prices of the products of a {@link ProductStore}.
+ *
+ * @param count  the number of products
+ * @param sum    the sum of the prices
+ * @param min    the minimum price, respectively {@link Double#NaN} if there are no products
+ * @param max    the maximum price, respectively {@link Double#NaN} if there are no products
+ * @param netSum the sum of the prices after applying the discounts - a percent discount reduces the price by the
+ *               given percent, a value discount subtracts the given value, without going below zero
+ */
+public record PriceAggregates(int count, double sum, double min, double max, double netSum) {
+
+    /**
+     * @return the average price, respectively {@link Double#NaN} if there are no products
+     */
+    public double mean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+}
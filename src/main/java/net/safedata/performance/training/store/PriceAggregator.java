@@ -0,0 +1,60 @@
+package net.safedata.performance.training.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates the price and the discount columns of a {@link ProductStore}.
+ * <p>
+ * The vectorized implementation uses the incubating Vector API, hence it is used only if the JVM was started with
+ * '--add-modules jdk.incubator.vector'; the scalar implementation is used otherwise.
+ */
+interface PriceAggregator {
+
+    String VECTOR_MODULE = "jdk.incubator.vector";
+
+    PriceAggregates aggregate(double[] prices, int[] discountValues, long[] discounted, long[] percentDiscounts,
+                              int size);
+
+    static PriceAggregator scalar() {
+        return ScalarPriceAggregator.INSTANCE;
+    }
+
+    /**
+     * @return the vectorized aggregator if the Vector API is available, the scalar one otherwise
+     */
+    static PriceAggregator fastest() {
+        return Fastest.INSTANCE;
+    }
+
+    final class Fastest {
+        private static final Logger LOGGER = LoggerFactory.getLogger(PriceAggregator.class);
+
+        private static final PriceAggregator INSTANCE = load();
+
+        private Fastest() {
+        }
+
+        private static PriceAggregator load() {
+            if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+                LOGGER.info("The '{}' module is not enabled, the prices are aggregated by the scalar code",
+                        VECTOR_MODULE);
+                return scalar();
+            }
+
+            // loaded by name, as the class cannot be linked without the module
+            try {
+                final PriceAggregator aggregator = Class.forName(PriceAggregator.class.getPackageName() +
+                                                                         ".VectorPriceAggregator")
+                                                        .asSubclass(PriceAggregator.class)
+                                                        .getDeclaredConstructor()
+                                                        .newInstance();
+                LOGGER.info("The prices are aggregated using the Vector API: {}", aggregator);
+                return aggregator;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                LOGGER.warn("Cannot use the Vector API, the prices are aggregated by the scalar code", e);
+                return scalar();
+            }
+        }
+    }
+}
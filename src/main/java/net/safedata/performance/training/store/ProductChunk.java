@@ -0,0 +1,110 @@
+package net.safedata.performance.training.store;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+
+import java.util.Arrays;
+
+/**
+ * A batch of products filled by a single thread, without any synchronization.
+ * <p>
+ * The chunks filled in parallel are merged by linking them, in encounter order, so that merging them doesn't copy
+ * or lock anything - they are copied only once, when they are appended to a {@link ProductStore}. It is intended to
+ * be used as a mutable reduction container:
+ * <pre>{@code
+ * IntStream.range(0, count)
+ *          .parallel()
+ *          .collect(ProductChunk::new, (chunk, index) -> chunk.add(...), ProductChunk::merge);
+ * }</pre>
+ */
+public class ProductChunk {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private Discount[] discounts = new Discount[INITIAL_CAPACITY];
+    private int length;
+
+    // the chunks merged after this one, and the total size of the linked chunks
+    private ProductChunk next;
+    private ProductChunk last = this;
+    private int totalSize;
+
+    public void add(final Product product) {
+        add(product.getId(), product.getName(), product.getPrice(), product.getDiscount().orElse(null));
+    }
+
+    public void add(final int id, final String name, final double price, final Discount discount) {
+        if (next != null) {
+            throw new IllegalStateException("Products cannot be added to a merged chunk");
+        }
+
+        if (length == ids.length) {
+            final int capacity = length << 1;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            discounts = Arrays.copyOf(discounts, capacity);
+        }
+
+        ids[length] = id;
+        names[length] = name;
+        prices[length] = price;
+        discounts[length] = discount;
+        length++;
+        totalSize++;
+    }
+
+    /**
+     * Links the given chunk after this one
+     */
+    public void merge(final ProductChunk other) {
+        if (other.totalSize == 0) {
+            return;
+        }
+
+        last.next = other;
+        last = other.last;
+        totalSize += other.totalSize;
+    }
+
+    public int size() {
+        return totalSize;
+    }
+
+    /**
+     * @return the aggregated prices of the products of all the linked chunks
+     */
+    public PriceAggregates aggregate() {
+        double sum = 0;
+        double netSum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (ProductChunk chunk = this; chunk != null; chunk = chunk.next) {
+            for (int index = 0; index < chunk.length; index++) {
+                final double price = chunk.prices[index];
+                final Discount discount = chunk.discounts[index];
+                sum += price;
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+                netSum += discount == null ? price : ScalarPriceAggregator.netPrice(price, discount.getValue(), true,
+                        discount.getDiscountType() == Discount.Type.Percent);
+            }
+        }
+
+        return totalSize > 0 ? new PriceAggregates(totalSize, sum, min, max, netSum)
+                             : new PriceAggregates(0, 0, Double.NaN, Double.NaN, 0);
+    }
+
+    void appendTo(final ProductStore store) {
+        for (ProductChunk chunk = this; chunk != null; chunk = chunk.next) {
+            for (int index = 0; index < chunk.length; index++) {
+                store.appendUnsafe(chunk.ids[index], chunk.names[index], chunk.prices[index],
+                        chunk.discounts[index]);
+            }
+        }
+    }
+}
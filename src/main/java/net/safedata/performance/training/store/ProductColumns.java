@@ -0,0 +1,24 @@
+package net.safedata.performance.training.store;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+
+/**
+ * The columns of the first {@code size} products of a {@link ProductStore} - a copy, restored columns, or a view of
+ * the store's own columns (see {@link ProductStore#view(boolean)})
+ */
+record ProductColumns(int size, int[] ids, double[] prices, int[] nameCodes, int[] discountValues, long[] discounted,
+                      long[] percentDiscounts, String[] names) {
+
+    Product product(final int index) {
+        final Discount discount = isSet(discounted, index)
+                ? new Discount(discountValues[index], isSet(percentDiscounts, index) ? Discount.Type.Percent
+                                                                                    : Discount.Type.Value)
+                : null;
+        return new Product(ids[index], names[nameCodes[index]], prices[index], discount);
+    }
+
+    private static boolean isSet(final long[] bitmap, final int index) {
+        return (bitmap[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,143 @@
+package net.safedata.performance.training.store;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Predicate;
+
+/**
+ * Caps the products kept in a {@link ProductStore}, evicting the oldest ones after each appended batch.
+ */
+public class ProductRetention {
+
+    public enum Policy {
+        /** keeps everything - the continuously growing memory case */
+        UNBOUNDED,
+        /** keeps at most 'maxCount' products */
+        MAX_COUNT,
+        /** keeps the products appended in the last 'maxAge' */
+        MAX_AGE,
+        /** keeps the products from the last 'windowBatches' appended batches */
+        SLIDING_WINDOW
+    }
+
+    private final Policy policy;
+    private final int maxCount;
+    private final long maxAgeNanos;
+    private final int windowBatches;
+
+    // the appended batches, oldest first, as {size, append time} pairs
+    private final Deque<long[]> batches = new ArrayDeque<>();
+
+    public ProductRetention(final Policy policy, final int maxCount, final Duration maxAge, final int windowBatches) {
+        if (policy == Policy.MAX_COUNT && maxCount <= 0) {
+            throw new IllegalArgumentException("The maximum products count must be positive");
+        }
+        if (policy == Policy.MAX_AGE && (maxAge == null || maxAge.isNegative() || maxAge.isZero())) {
+            throw new IllegalArgumentException("The maximum products age must be positive");
+        }
+        if (policy == Policy.SLIDING_WINDOW && windowBatches <= 0) {
+            throw new IllegalArgumentException("The sliding window must contain at least one batch");
+        }
+
+        this.policy = policy;
+        this.maxCount = maxCount;
+        this.maxAgeNanos = maxAge != null ? maxAge.toNanos() : Long.MAX_VALUE;
+        this.windowBatches = windowBatches;
+    }
+
+    public static ProductRetention unbounded() {
+        return new ProductRetention(Policy.UNBOUNDED, 0, null, 0);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Appends the chunk to the store, then evicts the products which are no longer retained
+     *
+     * @return the number of evicted products
+     */
+    public synchronized int append(final ProductStore store, final ProductChunk chunk) {
+        store.appendAll(chunk);
+        if (policy == Policy.UNBOUNDED) {
+            return 0;
+        }
+
+        final long now = System.nanoTime();
+        if (chunk.size() > 0) {
+            batches.addLast(new long[] {chunk.size(), now});
+        }
+
+        final int evicted = switch (policy) {
+            case MAX_COUNT -> Math.max(0, store.size() - maxCount);
+            case MAX_AGE -> countBatches(batch -> now - batch[1] > maxAgeNanos);
+            case SLIDING_WINDOW -> countOldestBatches(batches.size() - windowBatches);
+            case UNBOUNDED -> 0;
+        };
+
+        dropFromBatches(evicted);
+        store.removeOldest(evicted);
+        return evicted;
+    }
+
+    /**
+     * Replaces the content of the store with the chunk, which is retained as a single, newly appended batch
+     *
+     * @return the number of evicted products
+     */
+    public synchronized int replace(final ProductStore store, final ProductChunk chunk) {
+        store.clear();
+        batches.clear();
+        return append(store, chunk);
+    }
+
+    /**
+     * Restarts the retention of the store's products, e.g. after they were restored from a snapshot - they are
+     * retained as a single, newly appended batch
+     */
+    public synchronized void restart(final ProductStore store) {
+        batches.clear();
+        if (policy != Policy.UNBOUNDED && !store.isEmpty()) {
+            batches.addLast(new long[] {store.size(), System.nanoTime()});
+        }
+    }
+
+    private int countBatches(final Predicate<long[]> expired) {
+        int count = 0;
+        for (final long[] batch : batches) {
+            if (!expired.test(batch)) {
+                break;
+            }
+            count += (int) batch[0];
+        }
+        return count;
+    }
+
+    private int countOldestBatches(final int batchesNumber) {
+        int count = 0;
+        int remaining = batchesNumber;
+        for (final long[] batch : batches) {
+            if (remaining-- <= 0) {
+                break;
+            }
+            count += (int) batch[0];
+        }
+        return count;
+    }
+
+    private void dropFromBatches(final int evicted) {
+        int remaining = evicted;
+        while (remaining > 0 && !batches.isEmpty()) {
+            final long[] oldest = batches.peekFirst();
+            if (oldest[0] <= remaining) {
+                remaining -= (int) oldest[0];
+                batches.removeFirst();
+            } else {
+                oldest[0] -= remaining;
+                remaining = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package net.safedata.performance.training.store;
+
+import net.safedata.performance.training.concurrent.AdaptiveCutoff;
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A columnar, primitive-backed store for {@link Product}s: the ids, prices, name codes and discount values are kept
+ * in parallel arrays, the names are dictionary-encoded and the discounts are marked in bitmaps.
+ * <p>
+ * The aggregate operations iterate over the primitive columns and do not allocate per product.
+ * <p>
+ * The columns are only appended to, or replaced by new arrays - the values of the existing products are never
+ * modified in place. Hence a view of the columns (see {@link #view(boolean)}) can be read without holding the lock, e.g. by
+ * the tasks of a parallel stream, while new products are appended.
+ */
+public class ProductStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private NameDictionary names = new NameDictionary();
+
+    private int[] ids;
+    private double[] prices;
+    private int[] nameCodes;
+    private int[] discountValues;
+
+    // bit i is set if the product i has a discount, respectively if its discount is a percent one
+    private long[] discounted;
+    private long[] percentDiscounts;
+
+    private int size;
+
+    public ProductStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ProductStore(final int initialCapacity) {
+        final int capacity = Math.max(initialCapacity, 1);
+        ids = new int[capacity];
+        prices = new double[capacity];
+        nameCodes = new int[capacity];
+        discountValues = new int[capacity];
+        discounted = new long[words(capacity)];
+        percentDiscounts = new long[words(capacity)];
+    }
+
+    public synchronized void append(final Product product) {
+        append(product.getId(), product.getName(), product.getPrice(), product.getDiscount().orElse(null));
+    }
+
+    public synchronized void append(final int id, final String name, final double price, final Discount discount) {
+        ensureCapacity(size + 1);
+        appendUnsafe(id, name, price, discount);
+    }
+
+    /**
+     * Appends all the products of the (merged) chunk, growing the columns at most once
+     */
+    public synchronized void appendAll(final ProductChunk chunk) {
+        ensureCapacity(size + chunk.size());
+        chunk.appendTo(this);
+    }
+
+    /**
+     * Evicts the oldest {@code count} products
+     */
+    public synchronized void removeOldest(final int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        final int remaining = Math.max(size - count, 0);
+        final int offset = size - remaining;
+        final int capacity = Math.max(INITIAL_CAPACITY, remaining + (remaining >> 1));
+
+        // the columns are copied, so that the evicted products are not kept reachable by the old, larger arrays
+        ids = Arrays.copyOfRange(ids, offset, offset + capacity);
+        prices = Arrays.copyOfRange(prices, offset, offset + capacity);
+        nameCodes = Arrays.copyOfRange(nameCodes, offset, offset + capacity);
+        discountValues = Arrays.copyOfRange(discountValues, offset, offset + capacity);
+        discounted = shiftBitmap(discounted, offset, remaining, capacity);
+        percentDiscounts = shiftBitmap(percentDiscounts, offset, remaining, capacity);
+        size = remaining;
+
+        if (names.size() > size) {
+            reEncodeNames();
+        }
+    }
+
+    // invoked with the monitor held and with enough capacity
+    void appendUnsafe(final int id, final String name, final double price, final Discount discount) {
+        ids[size] = id;
+        prices[size] = price;
+        nameCodes[size] = names.encode(name);
+        if (discount != null) {
+            discountValues[size] = discount.getValue();
+            setBit(discounted, size);
+            if (discount.getDiscountType() == Discount.Type.Percent) {
+                setBit(percentDiscounts, size);
+            }
+        }
+
+        size++;
+    }
+
+    public synchronized Product get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + size);
+        }
+
+        final Discount discount = isSet(discounted, index)
+                ? new Discount(discountValues[index], isSet(percentDiscounts, index) ? Discount.Type.Percent
+                                                                                    : Discount.Type.Value)
+                : null;
+        return new Product(ids[index], names.decode(nameCodes[index]), prices[index], discount);
+    }
+
+    /**
+     * Passes each product to the action, in insertion order, with the store locked - e.g. to take a consistent
+     * snapshot of the store
+     */
+    public synchronized void forEach(final Consumer<Product> action) {
+        for (int index = 0; index < size; index++) {
+            action.accept(get(index));
+        }
+    }
+
+    /**
+     * @return a stream of the current products, which is parallel if they are more than a leaf of the cutoff; the
+     * products appended after the stream was created are not included
+     */
+    public Stream<Product> stream(final AdaptiveCutoff cutoff) {
+        final ProductColumns columns = view(true);
+        return StreamSupport.stream(new ProductStoreSpliterator.OfProducts(columns, cutoff),
+                cutoff.isWorthSplitting(columns.size()));
+    }
+
+    /**
+     * @return a stream of the current prices, split like the {@link #stream(AdaptiveCutoff)} one, without building
+     * the products
+     */
+    public DoubleStream prices(final AdaptiveCutoff cutoff) {
+        final ProductColumns columns = view(false);
+        return StreamSupport.doubleStream(new ProductStoreSpliterator.OfPrices(columns, cutoff),
+                cutoff.isWorthSplitting(columns.size()));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized double sum() {
+        double sum = 0;
+        for (int index = 0; index < size; index++) {
+            sum += prices[index];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the minimum price, respectively {@link Double#NaN} for an empty store
+     */
+    public synchronized double min() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+
+        double min = prices[0];
+        for (int index = 1; index < size; index++) {
+            min = Math.min(min, prices[index]);
+        }
+        return min;
+    }
+
+    /**
+     * @return the maximum price, respectively {@link Double#NaN} for an empty store
+     */
+    public synchronized double max() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+
+        double max = prices[0];
+        for (int index = 1; index < size; index++) {
+            max = Math.max(max, prices[index]);
+        }
+        return max;
+    }
+
+    /**
+     * @return the count, the sum, the min, the max and the discounted net sum of the prices, computed in a single
+     * pass - vectorized, if the Vector API is available
+     */
+    public synchronized PriceAggregates aggregate() {
+        return PriceAggregator.fastest().aggregate(prices, discountValues, discounted, percentDiscounts, size);
+    }
+
+    public synchronized int countDiscounted() {
+        int count = 0;
+        final int words = words(size);
+        for (int word = 0; word < words; word++) {
+            count += Long.bitCount(discounted[word]);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the products in each price band. The bands are delimited by the given ascending limits, each band
+     * including its lower limit: with the limits {@code [100, 1000]} the result contains the counts for the
+     * {@code (-inf, 100)}, {@code [100, 1000)} and {@code [1000, +inf)} price bands.
+     *
+     * @param bandLimits the ascending limits of the price bands
+     * @return the count of products in each of the {@code bandLimits.length + 1} price bands
+     */
+    public synchronized long[] countByPriceBand(final double... bandLimits) {
+        final long[] counts = new long[bandLimits.length + 1];
+        for (int index = 0; index < size; index++) {
+            final int position = Arrays.binarySearch(bandLimits, prices[index]);
+            counts[position >= 0 ? position + 1 : -position - 1]++;
+        }
+        return counts;
+    }
+
+    // new columns, as the current ones may still be read through a view
+    public synchronized void clear() {
+        ids = new int[INITIAL_CAPACITY];
+        prices = new double[INITIAL_CAPACITY];
+        nameCodes = new int[INITIAL_CAPACITY];
+        discountValues = new int[INITIAL_CAPACITY];
+        discounted = new long[words(INITIAL_CAPACITY)];
+        percentDiscounts = new long[words(INITIAL_CAPACITY)];
+        names = new NameDictionary();
+        size = 0;
+    }
+
+    /**
+     * @return a copy of the columns, taken with the store locked
+     */
+    synchronized ProductColumns copyColumns() {
+        return new ProductColumns(size, Arrays.copyOf(ids, size), Arrays.copyOf(prices, size),
+                Arrays.copyOf(nameCodes, size), Arrays.copyOf(discountValues, size),
+                Arrays.copyOf(discounted, words(size)), Arrays.copyOf(percentDiscounts, words(size)),
+                names.toArray());
+    }
+
+    /**
+     * @return a view of the current columns, without copying them - only the names are copied, if requested, as the
+     * dictionary is not safe for reading while other names are encoded
+     */
+    synchronized ProductColumns view(final boolean withNames) {
+        return new ProductColumns(size, ids, prices, nameCodes, discountValues, discounted, percentDiscounts,
+                withNames ? names.toArray() : null);
+    }
+
+    /**
+     * Replaces the content of the store with the given columns, which are used as they are
+     */
+    synchronized void replaceColumns(final ProductColumns columns) {
+        size = columns.size();
+        ids = columns.ids();
+        prices = columns.prices();
+        nameCodes = columns.nameCodes();
+        discountValues = columns.discountValues();
+        discounted = columns.discounted();
+        percentDiscounts = columns.percentDiscounts();
+        names = new NameDictionary(columns.names());
+        ensureCapacity(Math.max(size, INITIAL_CAPACITY));
+    }
+
+    private void ensureCapacity(final int minCapacity) {
+        if (minCapacity <= ids.length) {
+            return;
+        }
+
+        final int capacity = Math.max(minCapacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        nameCodes = Arrays.copyOf(nameCodes, capacity);
+        discountValues = Arrays.copyOf(discountValues, capacity);
+        discounted = Arrays.copyOf(discounted, words(capacity));
+        percentDiscounts = Arrays.copyOf(percentDiscounts, words(capacity));
+    }
+
+    private void reEncodeNames() {
+        final NameDictionary previousNames = names;
+        names = new NameDictionary();
+        for (int index = 0; index < size; index++) {
+            nameCodes[index] = names.encode(previousNames.decode(nameCodes[index]));
+        }
+    }
+
+    private static long[] shiftBitmap(final long[] bitmap, final int offset, final int bits, final int capacity) {
+        final long[] shifted = new long[words(capacity)];
+        final int wordOffset = offset >>> 6;
+        final int bitOffset = offset & 63;
+
+        for (int word = 0; word < words(bits); word++) {
+            final int source = word + wordOffset;
+            final long low = bitmap[source] >>> bitOffset;
+            final long high = bitOffset != 0 && source + 1 < bitmap.length
+                    ? bitmap[source + 1] << (Long.SIZE - bitOffset)
+                    : 0L;
+            shifted[word] = low | high;
+        }
+        return shifted;
+    }
+
+    private static int words(final int bits) {
+        return (bits + Long.SIZE - 1) >>> 6;
+    }
+
+    private static void setBit(final long[] bitmap, final int index) {
+        bitmap[index >>> 6] |= 1L << index;
+    }
+
+    private static boolean isSet(final long[] bitmap, final int index) {
+        return (bitmap[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,129 @@
+package net.safedata.performance.training.store;
+
+import net.safedata.performance.training.concurrent.AdaptiveCutoff;
+import net.safedata.performance.training.model.Product;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Splits a range of the {@link ProductStore} columns in halves, down to the leaf size chosen by an
+ * {@link AdaptiveCutoff} for the whole range. The leaves which are traversed in bulk report their duration to the
+ * cutoff, so that the next aggregations are split according to the measured cost per element.
+ */
+abstract class ProductStoreSpliterator<S extends ProductStoreSpliterator<S>> {
+
+    private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED |
+            Spliterator.IMMUTABLE | Spliterator.NONNULL;
+
+    final ProductColumns columns;
+    final AdaptiveCutoff cutoff;
+    final long leafSize;
+    int origin;
+    final int fence;
+
+    ProductStoreSpliterator(final ProductColumns columns, final int origin, final int fence,
+                            final AdaptiveCutoff cutoff, final long leafSize) {
+        this.columns = columns;
+        this.origin = origin;
+        this.fence = fence;
+        this.cutoff = cutoff;
+        this.leafSize = leafSize;
+    }
+
+    abstract S newSpliterator(int prefixOrigin, int prefixFence);
+
+    public S trySplit() {
+        final int remaining = fence - origin;
+        if (remaining <= leafSize) {
+            return null;
+        }
+
+        final int middle = origin + (remaining >>> 1);
+        final S prefix = newSpliterator(origin, middle);
+        origin = middle;
+        return prefix;
+    }
+
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    static final class OfProducts extends ProductStoreSpliterator<OfProducts> implements Spliterator<Product> {
+
+        OfProducts(final ProductColumns columns, final AdaptiveCutoff cutoff) {
+            super(columns, 0, columns.size(), cutoff, cutoff.cutoff(columns.size()));
+        }
+
+        private OfProducts(final OfProducts parent, final int origin, final int fence) {
+            super(parent.columns, origin, fence, parent.cutoff, parent.leafSize);
+        }
+
+        @Override
+        OfProducts newSpliterator(final int prefixOrigin, final int prefixFence) {
+            return new OfProducts(this, prefixOrigin, prefixFence);
+        }
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super Product> action) {
+            if (origin >= fence) {
+                return false;
+            }
+            action.accept(columns.product(origin++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super Product> action) {
+            final long start = System.nanoTime();
+            final int from = origin;
+            for (int index = from; index < fence; index++) {
+                action.accept(columns.product(index));
+            }
+            origin = fence;
+            cutoff.record(fence - from, System.nanoTime() - start);
+        }
+    }
+
+    static final class OfPrices extends ProductStoreSpliterator<OfPrices> implements Spliterator.OfDouble {
+
+        OfPrices(final ProductColumns columns, final AdaptiveCutoff cutoff) {
+            super(columns, 0, columns.size(), cutoff, cutoff.cutoff(columns.size()));
+        }
+
+        private OfPrices(final OfPrices parent, final int origin, final int fence) {
+            super(parent.columns, origin, fence, parent.cutoff, parent.leafSize);
+        }
+
+        @Override
+        OfPrices newSpliterator(final int prefixOrigin, final int prefixFence) {
+            return new OfPrices(this, prefixOrigin, prefixFence);
+        }
+
+        @Override
+        public boolean tryAdvance(final DoubleConsumer action) {
+            if (origin >= fence) {
+                return false;
+            }
+            action.accept(columns.prices()[origin++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final DoubleConsumer action) {
+            final long start = System.nanoTime();
+            final double[] prices = columns.prices();
+            final int from = origin;
+            for (int index = from; index < fence; index++) {
+                action.accept(prices[index]);
+            }
+            origin = fence;
+            cutoff.record(fence - from, System.nanoTime() - start);
+        }
+    }
+}
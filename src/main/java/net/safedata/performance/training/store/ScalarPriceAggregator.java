@@ -0,0 +1,47 @@
+package net.safedata.performance.training.store;
+
+final class ScalarPriceAggregator implements PriceAggregator {
+
+    static final ScalarPriceAggregator INSTANCE = new ScalarPriceAggregator();
+
+    private ScalarPriceAggregator() {
+    }
+
+    @Override
+    public PriceAggregates aggregate(final double[] prices, final int[] discountValues, final long[] discounted,
+                                     final long[] percentDiscounts, final int size) {
+        double sum = 0;
+        double netSum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int index = 0; index < size; index++) {
+            final double price = prices[index];
+            sum += price;
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+            netSum += netPrice(price, discountValues[index], isSet(discounted, index), isSet(percentDiscounts, index));
+        }
+
+        return size > 0 ? new PriceAggregates(size, sum, min, max, netSum)
+                        : new PriceAggregates(0, 0, Double.NaN, Double.NaN, 0);
+    }
+
+    static double netPrice(final double price, final int discountValue, final boolean discounted,
+                           final boolean percent) {
+        if (!discounted) {
+            return price;
+        }
+        return percent ? price * (1 - discountValue / 100d)
+                       : Math.max(price - discountValue, 0);
+    }
+
+    static boolean isSet(final long[] bitmap, final int index) {
+        return (bitmap[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
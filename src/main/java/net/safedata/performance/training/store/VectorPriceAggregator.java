@@ -0,0 +1,82 @@
+package net.safedata.performance.training.store;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Aggregates the prices in SIMD lanes, using the preferred vector shape of the platform. The discount bitmaps are
+ * used directly as the lane masks: the number of lanes divides 64, so the bits of a vector are in a single word.
+ * <p>
+ * The lanes are summed separately, so the sums may differ from the scalar ones in the last digits.
+ */
+final class VectorPriceAggregator implements PriceAggregator {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    // the ints species with the same number of lanes as the doubles one
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.length() * Integer.SIZE));
+
+    VectorPriceAggregator() {
+    }
+
+    @Override
+    public PriceAggregates aggregate(final double[] prices, final int[] discountValues, final long[] discounted,
+                                     final long[] percentDiscounts, final int size) {
+        if (size == 0) {
+            return ScalarPriceAggregator.INSTANCE.aggregate(prices, discountValues, discounted, percentDiscounts, 0);
+        }
+
+        DoubleVector sums = DoubleVector.zero(DOUBLES);
+        DoubleVector netSums = DoubleVector.zero(DOUBLES);
+        DoubleVector mins = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        DoubleVector maxes = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+
+        final int upperBound = DOUBLES.loopBound(size);
+        int index = 0;
+        for (; index < upperBound; index += DOUBLES.length()) {
+            final DoubleVector price = DoubleVector.fromArray(DOUBLES, prices, index);
+            final DoubleVector discountValue = (DoubleVector) IntVector.fromArray(INTS, discountValues, index)
+                                                                       .convertShape(VectorOperators.I2D, DOUBLES, 0);
+
+            final VectorMask<Double> isDiscounted = VectorMask.fromLong(DOUBLES, discounted[index >>> 6] >>> index);
+            final VectorMask<Double> isPercent = VectorMask.fromLong(DOUBLES, percentDiscounts[index >>> 6] >>> index);
+
+            final DoubleVector percentNet = price.mul(discountValue.mul(-0.01).add(1));
+            final DoubleVector valueNet = price.sub(discountValue).max(0);
+            final DoubleVector net = price.blend(valueNet, isDiscounted.andNot(isPercent))
+                                          .blend(percentNet, isPercent);
+
+            sums = sums.add(price);
+            netSums = netSums.add(net);
+            mins = mins.min(price);
+            maxes = maxes.max(price);
+        }
+
+        double sum = sums.reduceLanes(VectorOperators.ADD);
+        double netSum = netSums.reduceLanes(VectorOperators.ADD);
+        double min = mins.reduceLanes(VectorOperators.MIN);
+        double max = maxes.reduceLanes(VectorOperators.MAX);
+
+        for (; index < size; index++) {
+            final double price = prices[index];
+            sum += price;
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+            netSum += ScalarPriceAggregator.netPrice(price, discountValues[index],
+                    ScalarPriceAggregator.isSet(discounted, index),
+                    ScalarPriceAggregator.isSet(percentDiscounts, index));
+        }
+
+        return new PriceAggregates(size, sum, min, max, netSum);
+    }
+
+    @Override
+    public String toString() {
+        return DOUBLES.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package net.safedata.performance.training.codec;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import net.safedata.performance.training.model.Section;
+import net.safedata.performance.training.model.Store;
+import net.safedata.performance.training.model.StoreSection;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModelCodecTest {
+
+    private static final List<Product> PRODUCTS = List.of(
+            new Product(10, "Tablet", 249.99),
+            new Product(11, "Tablet Pro", 499.5, new Discount(10, Discount.Type.Percent)),
+            new Product(7, "Monitor", 0.1 + 0.2, new Discount(25, Discount.Type.Value)),
+            new Product(-3, null, -1.25),
+            new Product(Integer.MAX_VALUE, "Tablet", Double.MAX_VALUE)
+    );
+
+    @Test
+    void productsRoundTrip() {
+        final List<Product> decoded = ModelCodec.decodeProducts(ModelCodec.encodeProducts(PRODUCTS));
+
+        assertThat(decoded).usingRecursiveFieldByFieldElementComparator()
+                           .containsExactlyElementsOf(PRODUCTS);
+    }
+
+    @Test
+    void emptyProductsRoundTrip() {
+        assertThat(ModelCodec.decodeProducts(ModelCodec.encodeProducts(List.of()))).isEmpty();
+    }
+
+    @Test
+    void storeRoundTrip() {
+        final Set<Section> sections = new LinkedHashSet<>();
+        sections.add(new Section(1, StoreSection.Tablets, PRODUCTS.subList(0, 2)));
+        sections.add(new Section(2, StoreSection.Monitors, null));
+        final Store store = new Store(5, "Downtown", "Main Street", sections);
+
+        final Store decoded = ModelCodec.decodeStore(ModelCodec.encodeStore(store));
+
+        assertThat(decoded).usingRecursiveComparison()
+                           .isEqualTo(store);
+    }
+
+    @Test
+    void storeWithoutSectionsRoundTrip() {
+        final Store store = new Store(6, "Uptown", null, null);
+
+        assertThat(ModelCodec.decodeStore(ModelCodec.encodeStore(store))).usingRecursiveComparison()
+                                                                        .isEqualTo(store);
+    }
+
+    @Test
+    void rejectsTruncatedData() {
+        final byte[] encoded = ModelCodec.encodeProducts(PRODUCTS);
+
+        for (int length = 0; length < encoded.length; length++) {
+            final byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThatThrownBy(() -> ModelCodec.decodeProducts(truncated))
+                    .as("truncated to %d bytes", length)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsTrailingData() {
+        final byte[] products = ModelCodec.encodeProducts(PRODUCTS);
+        final byte[] store = ModelCodec.encodeStore(new Store(6, "Uptown", null, null));
+
+        assertThatThrownBy(() -> ModelCodec.decodeProducts(Arrays.copyOf(products, products.length + 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("trailing");
+        assertThatThrownBy(() -> ModelCodec.decodeStore(Arrays.copyOf(store, store.length + 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("trailing");
+    }
+
+    @Test
+    void rejectsAnotherRootType() {
+        final byte[] products = ModelCodec.encodeProducts(PRODUCTS);
+
+        assertThatThrownBy(() -> ModelCodec.decodeStore(products))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,119 @@
+package net.safedata.performance.training.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchingLoaderTest {
+
+    private final List<List<Integer>> bulkLoads = Collections.synchronizedList(new ArrayList<>());
+
+    // the even keys have a value
+    private final Function<List<Integer>, Map<Integer, String>> bulkLoader = keys -> {
+        bulkLoads.add(List.copyOf(keys));
+        return keys.stream()
+                   .filter(key -> key % 2 == 0)
+                   .collect(Collectors.toMap(Function.identity(), key -> "value " + key));
+    };
+
+    @Test
+    void coalescesTheKeysRequestedInTheSameWindow() {
+        try (BatchingLoader<Integer, String> loader = new BatchingLoader<>("test", bulkLoader, 100,
+                Duration.ofMillis(200))) {
+            final List<CompletableFuture<String>> values = new ArrayList<>();
+            for (int key = 0; key < 10; key++) {
+                values.add(loader.load(key));
+            }
+
+            assertThat(values.get(4).join()).isEqualTo("value 4");
+            assertThat(values.get(5).join()).isNull();
+            assertThat(bulkLoads).hasSize(1);
+            assertThat(bulkLoads.getFirst()).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+            assertThat(loader.getRequested()).isEqualTo(10);
+            assertThat(loader.getBatches()).isEqualTo(1);
+            assertThat(loader.getAverageBatchSize()).isEqualTo(10);
+            assertThat(loader.getFillRatio()).isEqualTo(0.1);
+        }
+    }
+
+    @Test
+    void loadsTheConcurrentRequestsOfAKeyOnce() {
+        try (BatchingLoader<Integer, String> loader = new BatchingLoader<>("test", bulkLoader, 100,
+                Duration.ofMillis(200))) {
+            final CompletableFuture<String> first = loader.load(2);
+            final CompletableFuture<String> second = loader.load(2);
+
+            assertThat(first.join()).isEqualTo("value 2");
+            assertThat(second.join()).isEqualTo("value 2");
+            assertThat(bulkLoads).containsExactly(List.of(2));
+        }
+    }
+
+    @Test
+    void dispatchesAFullBatchBeforeTheEndOfItsWindow() {
+        try (BatchingLoader<Integer, String> loader = new BatchingLoader<>("test", bulkLoader, 4,
+                Duration.ofSeconds(30))) {
+            final List<CompletableFuture<String>> values = new ArrayList<>();
+            for (int key = 0; key < 4; key++) {
+                values.add(loader.load(key));
+            }
+
+            CompletableFuture.allOf(values.toArray(CompletableFuture[]::new))
+                             .orTimeout(5, TimeUnit.SECONDS)
+                             .join();
+            assertThat(loader.getFullBatches()).isEqualTo(1);
+            assertThat(loader.getFillRatio()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void failsTheBatchOfAFailedBulkLoad() {
+        try (BatchingLoader<Integer, String> loader = new BatchingLoader<>("test", keys -> {
+            throw new IllegalStateException("The bulk load has failed");
+        }, 100, Duration.ofMillis(50))) {
+            final CompletableFuture<String> value = loader.load(1);
+
+            assertThatThrownBy(value::join).isInstanceOf(CompletionException.class)
+                                           .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void failsThePendingRequestsOnClose() throws InterruptedException {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final BatchingLoader<Integer, String> loader = new BatchingLoader<>("test", keys -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        }, 1, Duration.ofMillis(10));
+
+        // the first batch blocks the dispatcher, so the next request stays queued
+        final CompletableFuture<String> loaded = loader.load(1);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        final CompletableFuture<String> queued = loader.load(2);
+
+        loader.close();
+
+        assertThat(loaded.join()).isNull();
+        assertThatThrownBy(queued::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> loader.load(3).join()).hasCauseInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package net.safedata.performance.training.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScatterGatherTest {
+
+    private final ExecutorService executor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(4));
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        executor.shutdownNow();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void gathersAllTheResults() {
+        final ScatterGather scatterGather = new ScatterGather(executor, 8);
+
+        final PartialResult<Integer> result = scatterGather.invokeAll(List.of(() -> 1, () -> 2, () -> 3),
+                Duration.ofSeconds(5));
+
+        assertThat(result.isComplete()).isTrue();
+        assertThat(result.results()).containsExactlyInAnyOrder(1, 2, 3);
+    }
+
+    @Test
+    void cancelsTheTasksNotCompletedAtTheDeadline() throws InterruptedException {
+        final ScatterGather scatterGather = new ScatterGather(executor, 8);
+        final CountDownLatch interrupted = new CountDownLatch(2);
+        final Callable<Integer> slow = () -> {
+            try {
+                Thread.sleep(10_000);
+                return -1;
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        };
+
+        final PartialResult<Integer> result = scatterGather.invokeAll(List.of(() -> 1, slow, () -> 2, slow),
+                Duration.ofMillis(200));
+
+        assertThat(result.results()).containsExactlyInAnyOrder(1, 2);
+        assertThat(result.cancelled()).isEqualTo(2);
+        assertThat(result.failed()).isZero();
+        assertThat(result.rejected()).isZero();
+        assertThat(result.elapsedMillis()).isLessThan(5_000);
+        // the running stragglers are interrupted, not left to complete
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void countsTheFailedTasks() {
+        final ScatterGather scatterGather = new ScatterGather(executor, 8);
+        final Callable<Integer> failing = () -> {
+            throw new IllegalStateException("The task has failed");
+        };
+
+        final PartialResult<Integer> result = scatterGather.invokeAll(List.of(() -> 1, failing, failing),
+                Duration.ofSeconds(5));
+
+        assertThat(result.results()).containsExactly(1);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.cancelled()).isZero();
+        assertThat(result.isComplete()).isFalse();
+    }
+
+    @Test
+    void countsTheTasksRejectedByTheExecutor() {
+        // the 4 workers and the 4 queue slots are taken by the first 8 tasks
+        final ScatterGather scatterGather = new ScatterGather(executor, 12);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger started = new AtomicInteger();
+        final Callable<Integer> blocking = () -> {
+            started.incrementAndGet();
+            release.await();
+            return 1;
+        };
+
+        final PartialResult<Integer> result;
+        try {
+            result = scatterGather.invokeAll(Collections.nCopies(12, blocking), Duration.ofMillis(200));
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(result.rejected()).isEqualTo(4);
+        assertThat(result.cancelled()).isEqualTo(8);
+        assertThat(result.results()).isEmpty();
+        assertThat(started.get()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void rejectsMoreTasksThanTheMaximum() {
+        final ScatterGather scatterGather = new ScatterGather(executor, 2);
+
+        assertThatThrownBy(() -> scatterGather.invokeAll(List.of(() -> 1, () -> 2, () -> 3), Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package net.safedata.performance.training.sales;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SalesJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replaysTheDurableSales() throws Exception {
+        appendSales(100, 250, 1_000);
+
+        assertThat(recoveredTotal()).isEqualTo(1_350);
+    }
+
+    @Test
+    void replaysTheCheckpointOfTheNewSegments() throws Exception {
+        appendSales(100, 250);
+        appendSales(1_000);
+
+        assertThat(recoveredTotal()).isEqualTo(1_350);
+    }
+
+    @Test
+    void ignoresAPartiallyWrittenLastEntry() throws Exception {
+        appendSales(100, 250, 1_000);
+
+        try (FileChannel segment = FileChannel.open(lastSegment(), StandardOpenOption.WRITE)) {
+            segment.truncate(segment.size() - SalesJournal.ENTRY_SIZE / 2);
+        }
+
+        assertThat(recoveredTotal()).isEqualTo(350);
+    }
+
+    @Test
+    void ignoresALastEntryWithAnInvalidChecksum() throws Exception {
+        appendSales(100, 250, 1_000);
+
+        try (FileChannel segment = FileChannel.open(lastSegment(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // the amount of the last entry
+            final long position = segment.size() - SalesJournal.ENTRY_SIZE + 24;
+            final ByteBuffer amount = ByteBuffer.allocate(1);
+            segment.read(amount, position);
+            amount.put(0, (byte) (amount.get(0) ^ 0xFF));
+            segment.write(amount.rewind(), position);
+        }
+
+        assertThat(recoveredTotal()).isEqualTo(350);
+    }
+
+    @Test
+    void ignoresTheGarbageAfterTheLastEntry() throws Exception {
+        appendSales(100, 250);
+
+        Files.write(lastSegment(), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertThat(recoveredTotal()).isEqualTo(350);
+        // the sales appended after the recovery are written to a new segment, so they are not hidden by the torn one
+        appendSales(1_000);
+        assertThat(recoveredTotal()).isEqualTo(1_350);
+    }
+
+    private void appendSales(final long... cents) throws InterruptedException {
+        final SalesJournal salesJournal = open();
+        try {
+            for (final long sale : cents) {
+                salesJournal.appendSale(sale);
+            }
+            assertThat(salesJournal.awaitDurable(Duration.ofSeconds(10))).isTrue();
+        } finally {
+            salesJournal.close();
+        }
+    }
+
+    private long recoveredTotal() throws InterruptedException {
+        final SalesJournal salesJournal = open();
+        try {
+            return salesJournal.getRecoveredTotalCents();
+        } finally {
+            salesJournal.close();
+        }
+    }
+
+    private SalesJournal open() {
+        return new SalesJournal(true, directory, DataSize.ofKilobytes(64), 16, 1024);
+    }
+
+    // the segment written by the last opened journal
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            final List<Path> segments = files.sorted()
+                                             .toList();
+            return segments.getLast();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package net.safedata.performance.training.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Checks the vectorized aggregator against the scalar one - the tests run with the Vector API module added.
+ */
+class PriceAggregatorTest {
+
+    private final PriceAggregator vector = PriceAggregator.fastest();
+    private final PriceAggregator scalar = PriceAggregator.scalar();
+
+    @Test
+    void usesTheVectorApi() {
+        assertThat(vector).isNotSameAs(scalar);
+    }
+
+    // sizes below, at and around the vector lengths and the bitmap words, so the tail loop is covered too
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 7, 8, 9, 63, 64, 65, 1000, 1027})
+    void aggregatesLikeTheScalarCode(final int size) {
+        final Random random = new Random(size);
+        final double[] prices = new double[size];
+        final int[] discountValues = new int[size];
+        final long[] discounted = new long[(size + 63) / 64];
+        final long[] percentDiscounts = new long[(size + 63) / 64];
+        for (int index = 0; index < size; index++) {
+            prices[index] = random.nextInt(100_000) / 100.0;
+            if (random.nextInt(3) == 0) {
+                // the value discounts may be larger than the price, which is then zero
+                discountValues[index] = random.nextInt(100);
+                discounted[index >>> 6] |= 1L << index;
+                if (random.nextBoolean()) {
+                    percentDiscounts[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+
+        final PriceAggregates expected = scalar.aggregate(prices, discountValues, discounted, percentDiscounts, size);
+        final PriceAggregates actual = vector.aggregate(prices, discountValues, discounted, percentDiscounts, size);
+
+        assertThat(actual.count()).isEqualTo(expected.count());
+        // compared as Doubles, so that the NaN extremes of no products are equal
+        assertThat(Double.valueOf(actual.min())).isEqualByComparingTo(expected.min());
+        assertThat(Double.valueOf(actual.max())).isEqualByComparingTo(expected.max());
+        // the vector lanes add the prices in another order, so the sums may differ in their last bits
+        assertThat(actual.sum()).isCloseTo(expected.sum(), within(1e-6));
+        assertThat(actual.netSum()).isCloseTo(expected.netSum(), within(1e-6));
+    }
+}
@@ -0,0 +1,104 @@
+package net.safedata.performance.training.store;
+
+import net.safedata.performance.training.model.Discount;
+import net.safedata.performance.training.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductStoreTest {
+
+    private static final int SIZE = 1000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 63, 64, 65, 127, 128, 130, 999})
+    void removeOldestKeepsTheNewestProducts(final int count) {
+        final List<Product> products = products(SIZE);
+        final ProductStore productStore = storeOf(products);
+
+        productStore.removeOldest(count);
+
+        assertThat(contentOf(productStore)).usingRecursiveFieldByFieldElementComparator()
+                                           .containsExactlyElementsOf(products.subList(count, SIZE));
+    }
+
+    @Test
+    void removeOldestKeepsTheDiscountsOfTheAppendedProducts() {
+        final List<Product> products = products(SIZE);
+        final ProductStore productStore = storeOf(products.subList(0, 700));
+
+        productStore.removeOldest(333);
+        products.subList(700, SIZE).forEach(productStore::append);
+
+        assertThat(contentOf(productStore)).usingRecursiveFieldByFieldElementComparator()
+                                           .containsExactlyElementsOf(products.subList(333, SIZE));
+        assertThat(productStore.countDiscounted()).isEqualTo(products.subList(333, SIZE)
+                                                                    .stream()
+                                                                    .filter(product -> product.getDiscount()
+                                                                                              .isPresent())
+                                                                    .count());
+    }
+
+    @Test
+    void removeOldestOfAllTheProducts() {
+        final ProductStore productStore = storeOf(products(SIZE));
+
+        productStore.removeOldest(SIZE + 1);
+
+        assertThat(productStore.isEmpty()).isTrue();
+        assertThat(productStore.countDiscounted()).isZero();
+
+        productStore.append(new Product(1, "The product", 10, new Discount(5, Discount.Type.Value)));
+        assertThat(productStore.get(0).getDiscount()).isPresent();
+    }
+
+    @Test
+    void removeNothing() {
+        final List<Product> products = products(SIZE);
+        final ProductStore productStore = storeOf(products);
+
+        productStore.removeOldest(0);
+
+        assertThat(contentOf(productStore)).usingRecursiveFieldByFieldElementComparator()
+                                           .containsExactlyElementsOf(products);
+    }
+
+    @Test
+    void removeOldestReleasesTheNamesOfTheEvictedProducts() {
+        final ProductStore productStore = storeOf(products(SIZE));
+
+        productStore.removeOldest(SIZE - 10);
+
+        assertThat(productStore.copyColumns().names()).hasSize(10);
+    }
+
+    // every third product has a discount, alternating between the percent and the value ones, so the discount bits
+    // differ between the neighbouring words of the bitmaps
+    private static List<Product> products(final int count) {
+        final List<Product> products = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            final Discount discount = index % 3 == 0
+                    ? new Discount(index % 50, index % 2 == 0 ? Discount.Type.Percent : Discount.Type.Value)
+                    : null;
+            products.add(new Product(index, "The product " + index, 10 + index, discount));
+        }
+        return products;
+    }
+
+    private static ProductStore storeOf(final List<Product> products) {
+        final ProductStore productStore = new ProductStore(16);
+        products.forEach(productStore::append);
+        return productStore;
+    }
+
+    private static List<Product> contentOf(final ProductStore productStore) {
+        final List<Product> content = new ArrayList<>();
+        productStore.forEach(content::add);
+        return content;
+    }
+}